@@ -28,7 +28,31 @@
 
 package me.wobblyyyy.intra.ftc2.utils;
 
-public class Timed implements TimedCore {
+/**
+ * The standard implementation of TimedCore, and the thing you'll be
+ * scheduling most of the time.
+ * <p>
+ * This also implements {@link TimedLifecycle}, which is what the event
+ * schedulers actually call. By default, each lifecycle method just runs
+ * whatever the matching Runnable method hands back. If you'd rather not
+ * allocate a Runnable every time a phase runs, override the lifecycle
+ * methods (onOpen, onDuring, onClose) instead.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public class Timed implements TimedCore, TimedLifecycle {
+    /**
+     * A Runnable that doesn't do anything, shared by every phase that
+     * hasn't been overridden.
+     */
+    private static final Runnable NOTHING = new Runnable() {
+        @Override
+        public void run() {
+
+        }
+    };
+
     /**
      * Don't touch this pretty please...
      */
@@ -47,12 +71,7 @@ public class Timed implements TimedCore {
      * @return a runnable containing the timed execution stuff
      */
     public Runnable open() {
-        return new Runnable() {
-            @Override
-            public void run() {
-
-            }
-        };
+        return NOTHING;
     }
 
     /**
@@ -66,12 +85,7 @@ public class Timed implements TimedCore {
      * @return a runnable containing the timed execution stuff
      */
     public Runnable during() {
-        return new Runnable() {
-            @Override
-            public void run() {
-
-            }
-        };
+        return NOTHING;
     }
 
     /**
@@ -84,11 +98,30 @@ public class Timed implements TimedCore {
      * @return a runnable containing finishing / closing code.
      */
     public Runnable close() {
-        return new Runnable() {
-            @Override
-            public void run() {
+        return NOTHING;
+    }
 
-            }
-        };
+    /**
+     * Runs whatever open() returns.
+     */
+    @Override
+    public void onOpen() {
+        open().run();
+    }
+
+    /**
+     * Runs whatever during() returns.
+     */
+    @Override
+    public void onDuring() {
+        during().run();
+    }
+
+    /**
+     * Runs whatever close() returns.
+     */
+    @Override
+    public void onClose() {
+        close().run();
     }
 }
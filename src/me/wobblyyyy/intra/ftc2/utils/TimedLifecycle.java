@@ -0,0 +1,71 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 1:15 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils;
+
+/**
+ * Callback-style interface for timed executions.
+ * <p>
+ * {@link TimedCore} hands back a Runnable for every phase, which almost
+ * always means a brand new Runnable gets allocated every single time a
+ * phase runs. With a few thousand events in their during() phase, that's
+ * a lot of garbage every tick. This does the exact same job, but the
+ * scheduler just calls the methods directly, so nothing gets allocated.
+ * </p>
+ * <p>
+ * Everything has an empty default, so you only need to override the
+ * phases you actually care about. {@link Timed} implements this too, and
+ * by default just runs whatever Runnable the old-style method returns, so
+ * every existing Timed subclass keeps working exactly how it always has.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public interface TimedLifecycle {
+    /**
+     * Called once, when the timed execution begins.
+     */
+    default void onOpen() {
+    }
+
+    /**
+     * Called every tick while the timed execution is in progress, aside
+     * from the first and last ticks.
+     * <p>
+     * If you don't override this, the scheduler won't bother calling it.
+     * </p>
+     */
+    default void onDuring() {
+    }
+
+    /**
+     * Called once, when the timed execution closes.
+     */
+    default void onClose() {
+    }
+}
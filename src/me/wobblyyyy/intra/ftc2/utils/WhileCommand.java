@@ -28,8 +28,6 @@
 
 package me.wobblyyyy.intra.ftc2.utils;
 
-import me.wobblyyyy.intra.ftc2.utils.async.event.StringEvents;
-
 /**
  * A type of command which runs while a condition is true.
  * <p>
@@ -64,64 +62,28 @@ public abstract class WhileCommand {
     public static int count = 0;
 
     /**
-     * Each and every one of these sexy motherfuckers makes sure there's
-     * no conflicts at all.
-     * <p>
-     * Automatically generate a new string to make sure no two StringEvents
-     * are created, so nothing overlaps. In hindsight, this is probably
-     * a little bit stupid, but hey, don't worry about it!
-     * </p>
+     * The engine this command is registered with, or null if it isn't.
      */
-    private String stringName = "_wc_" + "17398729385"; // StringGenerator.getSaltString();
+    WhileCommandEngine engine = null;
 
     /**
-     * Internally used running command.
-     * <p>
-     * This is the part which actually interacts with the
-     * StringEvents interface to schedule events which run about
-     * 10 MS later.
-     * </p>
-     * <p>
-     * In order to make sure nothing ever overlaps, each and every
-     * WhileCommand has its own string name.
-     * </p>
-     * <p>
-     * If the condition is no longer the case, remove the StringEvent from
-     * the static string events manager to OPTIMIZE everything, of course.
-     * </p>
-     *
-     * @param runnable the Runnable which should be run if check() is true.
+     * Where this command is in its engine's array of commands.
      */
-    private void _run(Runnable runnable) {
-        if (check()) {
-            StringEvents.schedule(
-                    stringName,
-                    10,
-                    0,
-                    new Timed() {
-                        @Override
-                        public Runnable close() {
-                            return new Runnable() {
-                                @Override
-                                public void run() {
-                                    active().run();
-                                    _run(active());
-                                }
-                            };
-                        }
-                    },
-                    false
-            );
-        } else {
-            StringEvents.clear(stringName);
-        }
-    }
+    int engineIndex = -1;
+
+    /**
+     * The Runnable active() handed back when this command was registered,
+     * if the command caches it, or null.
+     */
+    Runnable runnable = null;
 
     /**
      * Abstract so the user has to override it.
      * <p>
      * Returns a runnable, which is what should be run
-     * while the condition is still true.
+     * while the condition is still true. This is called every
+     * single time the command runs, unless {@link WhileCommand#isActiveCached()}
+     * says otherwise.
      * TODO: maybe used a Timed() or something similar instead for more event options?
      * </p>
      *
@@ -142,6 +104,22 @@ public abstract class WhileCommand {
      */
     public abstract boolean check();
 
+    /**
+     * Can the Runnable active() hands back be reused forever?
+     * <p>
+     * By default, active() is called every time the command runs, so it
+     * can hand back something different every time. Most commands hand
+     * back the exact same thing every time, though. Those can override
+     * this to return true, and then active() is only called once, when
+     * the command is scheduled, instead of once per run.
+     * </p>
+     *
+     * @return true if active() only needs to be called once
+     */
+    protected boolean isActiveCached() {
+        return false;
+    }
+
     /**
      * 'Schedules' the while command.
      * <p>
@@ -149,9 +127,48 @@ public abstract class WhileCommand {
      * does, as the WhileCommands don't really work like regularly
      * scheduled asynchronous events.
      * </p>
+     * <p>
+     * Every WhileCommand used to share a single StringEvents channel,
+     * and scheduled a brand new event on it every 10 milliseconds. Now
+     * the command is just registered with the default
+     * {@link WhileCommandEngine}, once, and the engine takes care of the
+     * rest. Stopping one command doesn't touch any of the others.
+     * </p>
      */
     public final void scheduleWhileCommand() {
-        _run(active());
+        scheduleWhileCommand(WhileCommandEngine.getDefault());
+    }
+
+    /**
+     * 'Schedules' the while command on a specific engine.
+     * <p>
+     * If check() is already false, nothing is registered at all.
+     * </p>
+     *
+     * @param commandEngine the engine to run this command on
+     */
+    public final void scheduleWhileCommand(WhileCommandEngine commandEngine) {
+        if (check()) {
+            commandEngine.register(this);
+        }
         count++;
     }
+
+    /**
+     * Stop the while command, even if check() is still true.
+     *
+     * @return true if the command was running
+     */
+    public final boolean cancelWhileCommand() {
+        return engine != null && engine.unregister(this);
+    }
+
+    /**
+     * Is the while command running?
+     *
+     * @return true if the command is registered with an engine
+     */
+    public final boolean isWhileCommandRunning() {
+        return engine != null;
+    }
 }
@@ -0,0 +1,260 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils;
+
+import me.wobblyyyy.intra.ftc2.utils.async.event.Events;
+import me.wobblyyyy.intra.ftc2.utils.async.event.OverrunPolicy;
+import me.wobblyyyy.intra.ftc2.utils.async.event.RepeatMode;
+import me.wobblyyyy.intra.ftc2.utils.async.event.ScheduledEvent;
+import me.wobblyyyy.intra.ftc2.utils.async.event.StringEvents;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a whole bunch of {@link WhileCommand}s off of one periodic event.
+ * <p>
+ * WhileCommands used to each schedule a brand new Timed on StringEvents
+ * for every single iteration, all on the same channel, which meant a
+ * fresh allocation per command per loop, and clearing one of them wiped
+ * out every other one too. Now every command is registered with an
+ * engine exactly once. The engine keeps them in a plain array, and runs
+ * one periodic event - every period, in a single pass, it goes through
+ * every registered command, runs active() on the ones whose check()
+ * still passes, and drops the ones whose check() doesn't.
+ * </p>
+ * <p>
+ * Registering and unregistering a command are both O(1), and a pass
+ * doesn't allocate anything on its own, so thousands of commands can be
+ * running at once without any trouble. The periodic event is only
+ * scheduled while at least one command is registered.
+ * </p>
+ * <p>
+ * An engine only runs when its scheduler is ticked. The default engine
+ * lives on its own StringEvents channel, so anybody already calling
+ * {@link StringEvents#tick()} doesn't need to change anything.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public class WhileCommandEngine {
+    /**
+     * The name of the default engine's StringEvents channel.
+     */
+    public static final String CHANNEL = "_wc_engine";
+
+    /**
+     * The engine {@link WhileCommand#scheduleWhileCommand()} uses.
+     */
+    private static WhileCommandEngine defaultEngine = null;
+
+    /**
+     * The scheduler the engine's periodic event runs on.
+     */
+    private final Events events;
+
+    /**
+     * How often every command is evaluated.
+     */
+    private final long period;
+
+    /**
+     * The unit the period is in.
+     */
+    private final TimeUnit unit;
+
+    /**
+     * Every registered command. Only the first {@code size} are used.
+     */
+    private WhileCommand[] commands = new WhileCommand[16];
+
+    /**
+     * How many commands are registered.
+     */
+    private int size = 0;
+
+    /**
+     * The periodic event running every pass, or null if nothing's
+     * registered.
+     */
+    private ScheduledEvent pass = null;
+
+    /**
+     * What the periodic event actually runs. It's created once, and
+     * reused for every single pass.
+     */
+    private final TimedLifecycle passCallback = new TimedLifecycle() {
+        @Override
+        public void onClose() {
+            runPass();
+        }
+    };
+
+    /**
+     * Create a new engine.
+     *
+     * @param events the scheduler to run on
+     * @param period how often every command is evaluated
+     * @param unit   the unit the period is in
+     */
+    public WhileCommandEngine(Events events, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got " + period);
+        }
+        this.events = events;
+        this.period = period;
+        this.unit = unit;
+    }
+
+    /**
+     * Get the default engine, creating it if it doesn't exist yet.
+     * <p>
+     * It runs every 10 milliseconds, same as WhileCommands always have,
+     * on the {@link WhileCommandEngine#CHANNEL} StringEvents channel.
+     * </p>
+     *
+     * @return the default engine
+     */
+    public static WhileCommandEngine getDefault() {
+        if (defaultEngine == null) {
+            defaultEngine = new WhileCommandEngine(
+                    StringEvents.channel(StringEvents.handle(CHANNEL)),
+                    10,
+                    TimeUnit.MILLISECONDS
+            );
+        }
+        return defaultEngine;
+    }
+
+    /**
+     * Register a command with the engine.
+     * <p>
+     * The command's active() is asked for a Runnable every pass, unless
+     * the command {@link WhileCommand#isActiveCached() caches} it, in
+     * which case it's asked once, right here, and that same Runnable is
+     * run every pass from then on. The first pass happens one period
+     * from the next tick.
+     * </p>
+     * <p>
+     * If the engine's periodic event was cancelled out from under it
+     * (by clearing its channel, say, or restoring a snapshot), it's
+     * scheduled all over again here, so every registered command starts
+     * running again.
+     * </p>
+     *
+     * @param command the command to register
+     */
+    public void register(WhileCommand command) {
+        if (command.engine != null) {
+            throw new IllegalStateException("That command is already registered");
+        }
+        if (size == commands.length) {
+            commands = Arrays.copyOf(commands, size * 2);
+        }
+        command.engine = this;
+        command.engineIndex = size;
+        command.runnable = command.isActiveCached() ? command.active() : null;
+        commands[size++] = command;
+        if (pass == null || pass.isCancelled() || pass.isClosed()) {
+            pass = events.schedulePeriodic(
+                    period,
+                    unit,
+                    passCallback,
+                    RepeatMode.FIXED_RATE,
+                    OverrunPolicy.SKIP
+            );
+        }
+    }
+
+    /**
+     * Unregister a command, so it doesn't run anymore.
+     *
+     * @param command the command to unregister
+     * @return true if the command was registered with this engine
+     */
+    public boolean unregister(WhileCommand command) {
+        if (command.engine != this) {
+            return false;
+        }
+        // Move the last command into the gap, which keeps this O(1).
+        int index = command.engineIndex;
+        WhileCommand last = commands[--size];
+        commands[index] = last;
+        last.engineIndex = index;
+        commands[size] = null;
+        command.engine = null;
+        command.engineIndex = -1;
+        command.runnable = null;
+        if (size == 0 && pass != null) {
+            pass.cancel();
+            pass = null;
+        }
+        return true;
+    }
+
+    /**
+     * How many commands are registered.
+     *
+     * @return the number of running commands
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Evaluate every registered command once.
+     * <p>
+     * Commands registered partway through a pass (by another command's
+     * active(), say) generally aren't run until the next one. When a
+     * command is dropped, the last command is swapped into its spot, so
+     * the same spot is looked at again instead of moving on.
+     * </p>
+     */
+    private void runPass() {
+        int end = size;
+        int i = 0;
+        while (i < end && i < size) {
+            WhileCommand command = commands[i];
+            if (command.check()) {
+                Runnable runnable = command.runnable;
+                if (runnable == null) {
+                    runnable = command.active();
+                }
+                runnable.run();
+            } else {
+                unregister(command);
+            }
+            if (i < size && commands[i] == command) {
+                i++;
+            } else if (end > size) {
+                end = size;
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import me.wobblyyyy.intra.ftc2.utils.TimedLifecycle;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * A two-way map between callbacks and stable String IDs.
+ * <p>
+ * A callback is just an object in memory, which means it can't be
+ * written to a file and read back in by a different process. What can
+ * be, though, is a name. Register every callback you want to survive a
+ * restart under a name that's the same every time the program starts
+ * (the name of the step in an autonomous routine, for example), and an
+ * {@link EventSnapshot} can write the name out instead of the callback,
+ * and look the callback back up by name when it's restored.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public class CallbackRegistry {
+    /**
+     * Callbacks, by ID.
+     */
+    private final HashMap<String, TimedLifecycle> callbacks = new HashMap<>();
+
+    /**
+     * IDs, by callback. Callbacks are compared by identity, not equals().
+     */
+    private final IdentityHashMap<TimedLifecycle, String> ids = new IdentityHashMap<>();
+
+    /**
+     * Register a callback under an ID.
+     * <p>
+     * Registering a different callback under an ID that's already taken
+     * replaces the old one.
+     * </p>
+     *
+     * @param id       the callback's stable ID
+     * @param callback the callback
+     * @return the callback, so this can be used inline while scheduling
+     */
+    public <T extends TimedLifecycle> T register(String id, T callback) {
+        TimedLifecycle old = callbacks.put(id, callback);
+        if (old != null) {
+            ids.remove(old);
+        }
+        ids.put(callback, id);
+        return callback;
+    }
+
+    /**
+     * Get the callback registered under an ID.
+     *
+     * @param id the callback's ID
+     * @return the callback, or null if nothing's registered under that ID
+     */
+    public TimedLifecycle get(String id) {
+        return callbacks.get(id);
+    }
+
+    /**
+     * Get the ID a callback was registered under.
+     *
+     * @param callback the callback
+     * @return the callback's ID, or null if it isn't registered
+     */
+    public String idOf(TimedLifecycle callback) {
+        return ids.get(callback);
+    }
+
+    /**
+     * How many callbacks are registered.
+     *
+     * @return the number of registered callbacks
+     */
+    public int size() {
+        return callbacks.size();
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A node in the tree of {@link StringEvents} channel names.
+ * <p>
+ * Channel names are split up on dots, so "drive.left.front" lives under
+ * "drive.left", which lives under "drive", which lives under the root.
+ * A node can have a channel of its own (the one with exactly its name),
+ * children, or both. Nodes are created whenever a channel or a group
+ * needs one, and stick around forever - they're tiny.
+ * </p>
+ * <p>
+ * Pausing a group just sets a flag on its node, and ticking walks the
+ * tree instead of the channel map, so a paused subtree is skipped in one
+ * step without ever looking at what's inside of it.
+ * </p>
+ * <p>
+ * Clearing a group is lazy. Every clear bumps a global epoch and stamps
+ * the group's node with it. Every channel remembers the epoch it was
+ * last checked at, and the next time anything touches it (ticking it, or
+ * scheduling something on it), it checks its ancestors for a newer
+ * stamp, and clears itself if there is one. Nothing is ever cleared
+ * twice, and channels nobody's touching cost nothing at all.
+ * </p>
+ * <p>
+ * All of this has to be used from the thread ticking StringEvents.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+final class ChannelGroup {
+    /**
+     * Bumped every time any group is cleared.
+     */
+    static long epoch = 0;
+
+    /**
+     * This node's parent, or null for the root.
+     */
+    final ChannelGroup parent;
+
+    /**
+     * This node's children, by the next part of their name.
+     */
+    private final HashMap<String, ChannelGroup> children = new HashMap<>();
+
+    /**
+     * This node's children again, so they can be walked without an
+     * iterator. Only the first {@code childCount} are used.
+     */
+    ChannelGroup[] childArray = new ChannelGroup[0];
+
+    /**
+     * How many children this node has.
+     */
+    int childCount = 0;
+
+    /**
+     * The channel with exactly this node's name, or null.
+     */
+    Events channel;
+
+    /**
+     * The channel's name, the same String it's keyed by in the channel
+     * map, or null if this node has never had a channel.
+     */
+    String name;
+
+    /**
+     * Is this whole subtree paused?
+     */
+    boolean paused = false;
+
+    /**
+     * The epoch this subtree was last cleared at.
+     */
+    long clearedAt = 0;
+
+    /**
+     * The epoch this node's channel was last checked for clears at.
+     */
+    long settledAt = 0;
+
+    /**
+     * Which resync this node's channel was last seen in the channel map
+     * during.
+     */
+    int seenAt = 0;
+
+    /**
+     * Create a node.
+     *
+     * @param parent the node's parent, or null for the root
+     */
+    ChannelGroup(ChannelGroup parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Find a node by its dotted name.
+     * <p>
+     * A trailing ".*" is ignored, so "drive.left.*" and "drive.left" are
+     * the same group. An empty name, or just "*", is the root.
+     * </p>
+     *
+     * @param name   the node's name
+     * @param create should missing nodes be created?
+     * @return the node, or null if it doesn't exist and create is false
+     */
+    ChannelGroup find(String name, boolean create) {
+        if (name.endsWith(".*")) {
+            name = name.substring(0, name.length() - 2);
+        } else if (name.equals("*")) {
+            name = "";
+        }
+        ChannelGroup node = this;
+        int start = 0;
+        while (start < name.length()) {
+            int dot = name.indexOf('.', start);
+            int end = dot < 0 ? name.length() : dot;
+            String part = name.substring(start, end);
+            ChannelGroup child = node.children.get(part);
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new ChannelGroup(node);
+                node.children.put(part, child);
+                if (node.childCount == node.childArray.length) {
+                    node.childArray = Arrays.copyOf(node.childArray, Math.max(4, node.childCount * 2));
+                }
+                node.childArray[node.childCount++] = child;
+            }
+            node = child;
+            start = end + 1;
+        }
+        return node;
+    }
+
+    /**
+     * Hook a channel up to this node.
+     *
+     * @param key the channel's name, as it's keyed in the channel map
+     * @param ev  the channel with this node's name
+     */
+    void attach(String key, Events ev) {
+        name = key;
+        if (channel == ev) {
+            return;
+        }
+        if (channel != null && channel.group == this) {
+            channel.group = null;
+        }
+        channel = ev;
+        // A brand new channel hasn't missed any clears.
+        settledAt = epoch;
+        ev.group = this;
+    }
+
+    /**
+     * Is this node, or anything above it, paused?
+     *
+     * @return true if this node's channel shouldn't be ticked
+     */
+    boolean isPaused() {
+        for (ChannelGroup node = this; node != null; node = node.parent) {
+            if (node.paused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Clear this node's channel if this node, or anything above it, has
+     * been cleared since the last time it was checked.
+     * <p>
+     * Only called once the epoch has moved on from {@code settledAt}, so
+     * nothing's walked at all unless some group somewhere was cleared.
+     * </p>
+     */
+    void settle() {
+        long cleared = 0;
+        for (ChannelGroup node = this; node != null; node = node.parent) {
+            cleared = Math.max(cleared, node.clearedAt);
+        }
+        long last = settledAt;
+        settledAt = epoch;
+        if (cleared > last && channel != null) {
+            channel.clear();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 10:41 AM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+/**
+ * Where the event schedulers get the time from.
+ * <p>
+ * Everything in here is measured in nanoseconds, and the only thing
+ * that matters is the difference between two readings - what zero
+ * actually means is completely up to the clock. That's exactly how
+ * System.nanoTime() works, and it's the reason the default clock can't
+ * jump around when the wall clock gets changed.
+ * </p>
+ * <p>
+ * If you'd like to control time yourself, for testing or benchmarking
+ * or whatever else, hand a {@link ManualClock} to the scheduler instead.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public interface Clock {
+    /**
+     * The default clock, backed by System.nanoTime().
+     */
+    Clock SYSTEM = new SystemClock();
+
+    /**
+     * Get the current time.
+     *
+     * @return the current time, in nanoseconds
+     */
+    long nanoTime();
+}
@@ -0,0 +1,71 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+/**
+ * What happens when an event is scheduled under a key that already has
+ * an event waiting to be opened.
+ * <p>
+ * A key only counts as taken until its event opens. After that, the
+ * next event scheduled under the same key is scheduled as normal.
+ * </p>
+ *
+ * @author Colin Robertson
+ * @see Events#coalesce(Object, CoalescePolicy, long, long, java.util.concurrent.TimeUnit, me.wobblyyyy.intra.ftc2.utils.TimedLifecycle)
+ */
+public enum CoalescePolicy {
+    /**
+     * Cancel the waiting event, and schedule the new one in its place.
+     * <p>
+     * Good for when only the latest request matters, and its callbacks
+     * or timing might be different from the last one's.
+     * </p>
+     */
+    REPLACE,
+
+    /**
+     * Keep the waiting event, and drop the new one on the floor.
+     * <p>
+     * Good for retries being triggered by a bunch of different things at
+     * once - the first one wins, and the rest don't do anything.
+     * </p>
+     */
+    KEEP_EARLIEST,
+
+    /**
+     * Keep the waiting event, but push its opening back to a whole delay
+     * from now.
+     * <p>
+     * The event only opens once nothing's been scheduled under its key
+     * for the entire delay. Good for things like a noisy sensor, where
+     * you only want to react once it's settled down.
+     * </p>
+     */
+    DEBOUNCE
+}
@@ -0,0 +1,112 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 10:03 AM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, growable array of events.
+ * <p>
+ * This is basically a stripped down ArrayList. The scheduler keeps a
+ * handful of these around and clears them after every tick, so once
+ * they've grown to fit the usual number of events, ticking doesn't
+ * allocate anything at all. It's indexed directly too, so there's no
+ * Iterator getting created every time something loops over it.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+final class EventBuffer {
+    /**
+     * The backing array. Only the first {@code size} elements are used.
+     */
+    ScheduledEvent[] events = new ScheduledEvent[16];
+
+    /**
+     * How many events are in the buffer.
+     */
+    int size = 0;
+
+    /**
+     * Add an event to the end of the buffer, growing it if needed.
+     *
+     * @param event the event to add
+     */
+    void add(ScheduledEvent event) {
+        if (size == events.length) {
+            events = Arrays.copyOf(events, size * 2);
+        }
+        events[size++] = event;
+    }
+
+    /**
+     * Add part of another buffer to the end of this one.
+     *
+     * @param other the buffer to copy events from
+     * @param from  the index of the first event to copy
+     * @param to    the index after the last event to copy
+     */
+    void addAll(EventBuffer other, int from, int to) {
+        int count = to - from;
+        if (size + count > events.length) {
+            events = Arrays.copyOf(events, Math.max(size + count, size * 2));
+        }
+        System.arraycopy(other.events, from, events, size, count);
+        size += count;
+    }
+
+    /**
+     * Put the buffer in {@link ScheduledEvent#DISPATCH_ORDER dispatch order}.
+     * <p>
+     * Most ticks, the buffer's already in order - everything's the same
+     * priority and came out of the queue by deadline - so it's checked
+     * first, and only actually sorted if it needs to be.
+     * </p>
+     */
+    void sort() {
+        for (int i = 1; i < size; i++) {
+            if (ScheduledEvent.DISPATCH_ORDER.compare(events[i - 1], events[i]) > 0) {
+                Arrays.sort(events, 0, size, ScheduledEvent.DISPATCH_ORDER);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Empty the buffer, keeping the backing array around for next time.
+     * <p>
+     * The old references are nulled out so the buffer doesn't keep
+     * closed events from being garbage collected.
+     * </p>
+     */
+    void clear() {
+        Arrays.fill(events, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import me.wobblyyyy.intra.ftc2.utils.TimedLifecycle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A thread that drives a scheduler all on its own.
+ * <p>
+ * Normally, something has to call {@link Events#tick()} (or
+ * {@link StringEvents#tick()}) over and over from some outer loop. If
+ * that loop just spins, it eats an entire core doing nothing. If it
+ * sleeps for a fixed amount of time, events fire whenever the loop
+ * happens to wake up instead of when they're actually due. This owns a
+ * thread which ticks the scheduler, asks it how long until anything else
+ * is due, and then waits exactly that long.
+ * </p>
+ * <p>
+ * How it waits depends on how far away the next event is:
+ * <ul>
+ *     <li>
+ *         Nothing scheduled at all - the thread parks until somebody
+ *         submits something. It costs nothing.
+ *     </li>
+ *     <li>
+ *         Further away than the spin-wait threshold - the thread parks
+ *         for however long is left, minus the spin-wait threshold. Parking
+ *         is cheap, but the OS usually wakes the thread up a little late,
+ *         which is what the threshold covers.
+ *     </li>
+ *     <li>
+ *         Closer than the spin-wait threshold - the thread spins, calling
+ *         {@link Thread#onSpinWait()} to let the CPU know it's just
+ *         waiting around.
+ *     </li>
+ *     <li>
+ *         Closer than the spin threshold - the thread spins as hard as it
+ *         possibly can, without even the hint.
+ *     </li>
+ * </ul>
+ * </p>
+ * <p>
+ * Bigger thresholds mean more precise wake-ups and more CPU time spent
+ * waiting. Setting both to 0 means the thread only ever parks, which is
+ * the cheapest possible option, and about as precise as the OS's timer.
+ * </p>
+ * <p>
+ * Events which need during() want a tick as often as possible. While any
+ * of those are open, the loop ticks at least once every during interval,
+ * even if nothing's due. An interval of 0 means the loop never waits at
+ * all while there's during() work to do.
+ * </p>
+ * <p>
+ * Once a loop is started, its thread is the only one allowed to tick the
+ * scheduler or call any of its thread-unsafe methods. Everybody else has
+ * to go through {@link Events#submit(long, TimedLifecycle)} and
+ * {@link Events#submitCancel(ScheduledEvent)}, which wake the loop up so
+ * it notices the new event straight away.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public class EventLoop {
+    /**
+     * Default spin threshold - 2 microseconds.
+     */
+    public static final long DEFAULT_SPIN = TimeUnit.MICROSECONDS.toNanos(2);
+
+    /**
+     * Default spin-wait threshold - 50 microseconds.
+     */
+    public static final long DEFAULT_SPIN_WAIT = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Default during interval - 1 millisecond.
+     */
+    public static final long DEFAULT_DURING_INTERVAL = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The scheduler being driven, or null if it's every StringEvents
+     * channel instead.
+     */
+    private final Events events;
+
+    /**
+     * Below this many nanoseconds, spin without any hint.
+     */
+    private final long spin;
+
+    /**
+     * Below this many nanoseconds, spin with {@link Thread#onSpinWait()}.
+     */
+    private final long spinWait;
+
+    /**
+     * Longest time between ticks while during() needs running, in
+     * nanoseconds.
+     */
+    private final long duringInterval;
+
+    /**
+     * Should the loop keep going?
+     */
+    private volatile boolean running = false;
+
+    /**
+     * The thread running the loop, or null if it isn't running.
+     */
+    private volatile Thread thread = null;
+
+    /**
+     * Create a loop which drives every {@link StringEvents} channel, with
+     * the default thresholds.
+     */
+    public EventLoop() {
+        this(null);
+    }
+
+    /**
+     * Create a loop which drives a single scheduler, with the default
+     * thresholds.
+     *
+     * @param events the scheduler to drive, or null to drive every
+     *               {@link StringEvents} channel instead
+     */
+    public EventLoop(Events events) {
+        this(events, DEFAULT_SPIN, DEFAULT_SPIN_WAIT, DEFAULT_DURING_INTERVAL, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Create a loop which drives a single scheduler.
+     *
+     * @param events         the scheduler to drive, or null to drive every
+     *                       {@link StringEvents} channel instead
+     * @param spin           below this, spin as hard as possible
+     * @param spinWait       below this, spin with onSpinWait(). Above
+     *                       this, park. Can't be less than spin.
+     * @param duringInterval longest time between ticks while any event
+     *                       needs during() run
+     * @param unit           the unit all of the times are in
+     */
+    public EventLoop(Events events,
+                     long spin,
+                     long spinWait,
+                     long duringInterval,
+                     TimeUnit unit) {
+        if (spin < 0 || spinWait < spin || duringInterval < 0) {
+            throw new IllegalArgumentException(
+                    "Need 0 <= spin <= spinWait and duringInterval >= 0, got " +
+                            spin + ", " + spinWait + ", " + duringInterval
+            );
+        }
+        this.events = events;
+        this.spin = unit.toNanos(spin);
+        this.spinWait = unit.toNanos(spinWait);
+        this.duringInterval = unit.toNanos(duringInterval);
+    }
+
+    /**
+     * Start the loop's thread.
+     * <p>
+     * The thread is a daemon, so it won't keep the program alive on its
+     * own. A scheduler can only be driven by one loop at a time.
+     * </p>
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("This loop is already running");
+        }
+        if (events != null) {
+            if (events.loop != null) {
+                throw new IllegalStateException("That scheduler already has a loop driving it");
+            }
+            events.loop = this;
+        } else {
+            StringEvents.setLoop(this);
+        }
+        running = true;
+        Thread loopThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "EventLoop");
+        loopThread.setDaemon(true);
+        thread = loopThread;
+        loopThread.start();
+    }
+
+    /**
+     * Stop the loop, and wait for its thread to finish.
+     * <p>
+     * Whatever tick is in progress is allowed to finish first. After
+     * this returns, it's safe to tick the scheduler by hand again.
+     * </p>
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void stop() throws InterruptedException {
+        Thread loopThread = thread;
+        if (loopThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(loopThread);
+        if (loopThread != Thread.currentThread()) {
+            loopThread.join();
+        }
+    }
+
+    /**
+     * Is the loop running?
+     *
+     * @return true if the loop's thread is ticking the scheduler
+     */
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * Wake the loop up, so it re-checks when the next event is due.
+     * <p>
+     * Submitting an event already does this. It's only here in case
+     * something else changes which the loop should notice.
+     * </p>
+     */
+    public void wakeup() {
+        Thread loopThread = thread;
+        if (loopThread != null) {
+            LockSupport.unpark(loopThread);
+        }
+    }
+
+    /**
+     * The loop itself - tick, wait, repeat.
+     */
+    private void loop() {
+        try {
+            while (running) {
+                tick();
+                long ticked = System.nanoTime();
+                await(ticked);
+            }
+        } finally {
+            if (events != null) {
+                events.loop = null;
+            } else {
+                StringEvents.setLoop(null);
+            }
+            thread = null;
+        }
+    }
+
+    /**
+     * Wait until the next tick is due.
+     *
+     * @param ticked when the last tick finished
+     */
+    private void await(long ticked) {
+        while (running) {
+            long remaining = nanosUntilNext();
+            if (hasActive()) {
+                remaining = Math.min(remaining, ticked + duringInterval - System.nanoTime());
+            }
+            if (remaining <= 0) {
+                return;
+            }
+            if (remaining == Long.MAX_VALUE) {
+                LockSupport.park(this);
+                continue;
+            }
+            if (remaining > spinWait) {
+                // Park for most of it. Whether this times out or somebody
+                // wakes us up, go around again and figure out what's left.
+                LockSupport.parkNanos(this, remaining - spinWait);
+                continue;
+            }
+            // Close enough to spin the rest of the way. Anything submitted
+            // in the meantime just has to wait for this to finish.
+            long target = System.nanoTime() + remaining;
+            long left;
+            while (running && (left = target - System.nanoTime()) > 0) {
+                if (left > spin) {
+                    Thread.onSpinWait();
+                }
+            }
+            return;
+        }
+    }
+
+    /**
+     * Tick whatever's being driven.
+     */
+    private void tick() {
+        if (events != null) {
+            events.tick();
+        } else {
+            StringEvents.tick();
+        }
+    }
+
+    /**
+     * How long until whatever's being driven has something due.
+     *
+     * @return nanoseconds until the next event
+     */
+    private long nanosUntilNext() {
+        return events != null ? events.nanosUntilNext() : StringEvents.nanosUntilNext();
+    }
+
+    /**
+     * Does whatever's being driven have during() work to do?
+     *
+     * @return true if any open event needs during()
+     */
+    private boolean hasActive() {
+        return events != null ? events.hasActive() : StringEvents.hasActive();
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live numbers about how a single {@link Events} scheduler is doing.
+ * <p>
+ * Every scheduler keeps one of these up to date as it ticks. None of it
+ * is optional, because none of it is expensive - recording a tick is one
+ * extra clock read, a couple of histogram updates and a few stores, and
+ * nothing allocates. Only the ticking thread ever writes to it (apart
+ * from the overflow counters, which submitting threads can bump too),
+ * but it's safe to read from any other thread (a telemetry thread, a
+ * dashboard, whatever) while the scheduler is running.
+ * </p>
+ * <p>
+ * All times are in nanoseconds.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public final class EventMetrics {
+    /**
+     * How long every tick took, start to finish.
+     */
+    private final Histogram tickDuration = new Histogram();
+
+    /**
+     * How late every event closed, measured from its deadline to the
+     * start of the tick that closed it.
+     */
+    private final Histogram lateness = new Histogram();
+
+    /**
+     * How many ticks have been recorded.
+     */
+    private volatile long ticks;
+
+    /**
+     * How many callbacks have been run, in total.
+     */
+    private volatile long callbacks;
+
+    /**
+     * How many callbacks the last tick ran.
+     */
+    private volatile int lastCallbacks;
+
+    /**
+     * How many events were waiting to be opened after the last tick.
+     */
+    private volatile int pending;
+
+    /**
+     * How many events were open after the last tick.
+     */
+    private volatile int open;
+
+    /**
+     * How many open events needed during() run after the last tick.
+     */
+    private volatile int during;
+
+    /**
+     * How much work a budgeted tick left for the next one.
+     */
+    private volatile int backlog;
+
+    /**
+     * How many events were refused because the scheduler was full.
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * How many old events were cancelled to make room for new ones.
+     */
+    private final LongAdder droppedOldest = new LongAdder();
+
+    /**
+     * How many new events were dropped because the scheduler was full.
+     */
+    private final LongAdder droppedNewest = new LongAdder();
+
+    /**
+     * How many times a submitting thread had to wait for room.
+     */
+    private final LongAdder blocked = new LongAdder();
+
+    /**
+     * How many of those waits ran out of time.
+     */
+    private final LongAdder blockTimeouts = new LongAdder();
+
+    /**
+     * Record that an event closed late.
+     *
+     * @param nanos how far past its deadline the event was
+     */
+    void recordLateness(long nanos) {
+        lateness.record(nanos);
+    }
+
+    /**
+     * Record a finished tick.
+     *
+     * @param nanos         how long the tick took
+     * @param tickCallbacks how many callbacks the tick ran
+     * @param pending       how many events are waiting to be opened
+     * @param open          how many events are open
+     * @param during        how many open events need during() run
+     * @param backlog       how many opens and closes were left over
+     */
+    void recordTick(long nanos, int tickCallbacks, int pending, int open, int during, int backlog) {
+        tickDuration.record(nanos);
+        this.lastCallbacks = tickCallbacks;
+        this.callbacks = callbacks + tickCallbacks;
+        this.pending = pending;
+        this.open = open;
+        this.during = during;
+        this.backlog = backlog;
+        this.ticks = ticks + 1;
+    }
+
+    /**
+     * Count an event being refused because the scheduler was full.
+     */
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * Count an old event being cancelled to make room.
+     */
+    void recordDroppedOldest() {
+        droppedOldest.increment();
+    }
+
+    /**
+     * Count a new event being dropped because the scheduler was full.
+     */
+    void recordDroppedNewest() {
+        droppedNewest.increment();
+    }
+
+    /**
+     * Count a submitting thread having to wait for room.
+     */
+    void recordBlocked() {
+        blocked.increment();
+    }
+
+    /**
+     * Count a submitting thread giving up on waiting for room.
+     */
+    void recordBlockTimeout() {
+        blockTimeouts.increment();
+    }
+
+    /**
+     * Get the histogram of tick durations.
+     * <p>
+     * Durations are measured with {@link System#nanoTime()}, not the
+     * scheduler's clock, so they're real time spent ticking even when the
+     * scheduler's running on a {@link ManualClock}. They include draining
+     * submissions from other threads, too.
+     * </p>
+     *
+     * @return how long ticks have been taking
+     */
+    public Histogram getTickDuration() {
+        return tickDuration;
+    }
+
+    /**
+     * Get the histogram of how late events have been closing.
+     *
+     * @return how late events have been closing
+     */
+    public Histogram getLateness() {
+        return lateness;
+    }
+
+    /**
+     * How many ticks have been recorded.
+     *
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * How many callbacks have been run since the scheduler was created.
+     *
+     * @return the total number of callbacks run
+     */
+    public long getCallbacks() {
+        return callbacks;
+    }
+
+    /**
+     * How many callbacks the most recent tick ran.
+     *
+     * @return the number of callbacks the last tick ran
+     */
+    public int getLastTickCallbacks() {
+        return lastCallbacks;
+    }
+
+    /**
+     * How many events are scheduled, but not open yet. This includes
+     * events still waiting out a delay.
+     *
+     * @return the number of pending events
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * How many events are open.
+     *
+     * @return the number of open events
+     */
+    public int getOpen() {
+        return open;
+    }
+
+    /**
+     * How many open events are having during() run every tick.
+     *
+     * @return the number of events in their during() phase
+     */
+    public int getDuring() {
+        return during;
+    }
+
+    /**
+     * How many opens and closes the last tick ran out of time for.
+     *
+     * @return the last tick's backlog, which is always 0 unless the
+     * tick had a budget
+     * @see Events#tick(long)
+     */
+    public int getBacklog() {
+        return backlog;
+    }
+
+    /**
+     * How many events have been refused because the scheduler was full.
+     * <p>
+     * This counts {@link OverflowPolicy#REJECT} rejections, plus
+     * {@link OverflowPolicy#BLOCK} rejections on the ticking thread, which
+     * can't wait. Timed-out waits are counted separately.
+     * </p>
+     *
+     * @return the number of rejected events
+     * @see Events#setCapacity(int, OverflowPolicy)
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * How many old events have been cancelled to make room for new ones.
+     *
+     * @return the number of events dropped by {@link OverflowPolicy#DROP_OLDEST}
+     */
+    public long getDroppedOldest() {
+        return droppedOldest.sum();
+    }
+
+    /**
+     * How many new events have been dropped because the scheduler was full.
+     *
+     * @return the number of events dropped by {@link OverflowPolicy#DROP_NEWEST}
+     */
+    public long getDroppedNewest() {
+        return droppedNewest.sum();
+    }
+
+    /**
+     * How many times a submitting thread has had to wait for room.
+     *
+     * @return the number of {@link OverflowPolicy#BLOCK} waits
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * How many times a submitting thread gave up waiting for room.
+     *
+     * @return the number of {@link OverflowPolicy#BLOCK} waits that timed out
+     */
+    public long getBlockTimeouts() {
+        return blockTimeouts.sum();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 9:12 AM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+/**
+ * The structure an {@link Events} scheduler keeps its opened events in.
+ * <p>
+ * The scheduler only ever needs to know one thing from this: which
+ * events have gone past their deadline and need to be closed. How that's
+ * worked out is entirely up to the implementation.
+ * </p>
+ * <ul>
+ *     <li>
+ *         {@link HeapEventQueue} is the default. It's a plain binary heap,
+ *         O(log n) everything, and hands expired events back in exact
+ *         deadline order.
+ *     </li>
+ *     <li>
+ *         {@link TimingWheel} is a hierarchical hashed timing wheel. O(1)
+ *         insert and expiry, at the cost of only being as precise as its
+ *         resolution. Use this one if you've got thousands of timeouts.
+ *     </li>
+ * </ul>
+ * <p>
+ * Each queue belongs to exactly one scheduler. Don't share them.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public interface EventQueue {
+    /**
+     * Add an event to the queue.
+     * <p>
+     * The queue must have been advanced to the current time at least
+     * once before anything is added to it.
+     * </p>
+     *
+     * @param event the event to add
+     */
+    void add(ScheduledEvent event);
+
+    /**
+     * Add a whole batch of events to the queue at once.
+     * <p>
+     * By default this just adds them one at a time. Queues which can do
+     * better in bulk (like the heap, which can be rebuilt in linear time)
+     * should override it.
+     * </p>
+     *
+     * @param events an array holding the events to add
+     * @param from   the index of the first event to add
+     * @param to     the index after the last event to add
+     */
+    default void addAll(ScheduledEvent[] events, int from, int to) {
+        for (int i = from; i < to; i++) {
+            add(events[i]);
+        }
+    }
+
+    /**
+     * Remove an event from the queue, if it's in there.
+     *
+     * @param event the event to remove
+     */
+    void remove(ScheduledEvent event);
+
+    /**
+     * Drop a cancelled event from the queue.
+     * <p>
+     * By the time this is called, the event is already marked as
+     * cancelled, so the queue doesn't have to get rid of it straight
+     * away. It's allowed to just leave it there and skip it later - the
+     * only rule is that a cancelled event never comes out of
+     * {@link EventQueue#poll()}. By default it's just removed.
+     * </p>
+     *
+     * @param event the event that was cancelled
+     */
+    default void cancel(ScheduledEvent event) {
+        remove(event);
+    }
+
+    /**
+     * Fix the queue up after an event's deadline has changed.
+     * <p>
+     * By default the event is just taken out and put back in again.
+     * </p>
+     *
+     * @param event the event whose deadline changed
+     */
+    default void update(ScheduledEvent event) {
+        remove(event);
+        add(event);
+    }
+
+    /**
+     * Move the queue's idea of "now" forwards.
+     * <p>
+     * Anything which has expired by this time becomes available
+     * from {@link EventQueue#poll()}.
+     * </p>
+     *
+     * @param now the current time
+     */
+    void advance(long now);
+
+    /**
+     * Take the next expired event out of the queue.
+     *
+     * @return an expired event, or null if nothing has expired
+     */
+    ScheduledEvent poll();
+
+    /**
+     * When the earliest event in the queue is due.
+     * <p>
+     * Nothing can come out of {@link EventQueue#poll()} until the queue
+     * has been advanced to a time strictly past this. Queues which don't
+     * know exactly (like the timing wheel, which only knows which bucket
+     * things are in) are allowed to return something earlier, but never
+     * something later.
+     * </p>
+     *
+     * @return the earliest deadline in the queue, {@code Long.MIN_VALUE}
+     * if something can already be polled, or {@code Long.MAX_VALUE} if
+     * the queue is empty
+     */
+    long nextDeadline();
+
+    /**
+     * How many events are in the queue.
+     *
+     * @return the number of events in the queue
+     */
+    int size();
+}
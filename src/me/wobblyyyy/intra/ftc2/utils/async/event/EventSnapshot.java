@@ -0,0 +1,411 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import me.wobblyyyy.intra.ftc2.utils.TimedLifecycle;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Saves a scheduler's live events to a file, and restores them again.
+ * <p>
+ * If the program restarts partway through a long sequence of events,
+ * every deadline it had is gone, and normally the only way to get them
+ * back is running all of the setup logic again. This writes out every
+ * live event - which phase it's in, how long it has left, how long it
+ * lasts and how it repeats - so a fresh process can pick up right where
+ * the old one left off, in one pass over the file.
+ * </p>
+ * <p>
+ * Only events whose callbacks are registered in a
+ * {@link CallbackRegistry} are saved. Everything else is skipped, since
+ * there'd be no way to find its callback again anyway. Cross-thread
+ * submissions that haven't been picked up yet aren't saved, and neither
+ * is an offloaded event's executor - it comes back as a normal event.
+ * </p>
+ * <p>
+ * Deadlines are saved relative to when the snapshot was taken, along
+ * with the wall-clock time it was taken at. When it's restored, however
+ * long the program was down for is taken off every deadline, so events
+ * that should've expired in the meantime expire on the first tick.
+ * Restored events that were already open are put straight back in the
+ * open phase, and their open() isn't run again. Anything open() had set
+ * up outside of the callback itself is up to you to set back up.
+ * </p>
+ * <p>
+ * Saving never touches the last snapshot until the new one is complete.
+ * It's written to a temporary file next to it first, flushed to disk,
+ * and only then moved over the top of the old one in one atomic step, so
+ * a crash partway through a save leaves the last good snapshot alone.
+ * </p>
+ * <p>
+ * The file is written and read through a memory-mapped FileChannel. It
+ * starts with a header and a table of every callback ID used, and every
+ * event after that is a fixed 30 bytes:
+ * <pre>
+ * int   magic, int version, long wall time, int ID count
+ * ID count * (short length, UTF-8 bytes)
+ * int   channel count
+ * channel count * (
+ *     short name length, UTF-8 name bytes (length -1 for no name),
+ *     int   event count
+ *     event count * (
+ *         int ID index, byte phase, byte flags (repeat bits, priority),
+ *         long time left, long duration, long period
+ *     )
+ * )
+ * </pre>
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public final class EventSnapshot {
+    /**
+     * The first four bytes of every snapshot - "EVSN".
+     */
+    private static final int MAGIC = 0x4556534E;
+
+    /**
+     * The snapshot format version.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * How many bytes a single event takes up.
+     */
+    private static final int EVENT_BYTES = 4 + 1 + 1 + 8 + 8 + 8;
+
+    /**
+     * Repeat flag for a fixed-rate event.
+     */
+    private static final int FIXED_RATE = 1;
+
+    /**
+     * Repeat flag for an event that skips missed periods.
+     */
+    private static final int SKIP = 2;
+
+    /**
+     * Where an event's priority starts in its flags. Version 1 snapshots
+     * didn't have one, and everything in them comes back as normal
+     * priority.
+     */
+    private static final int PRIORITY_SHIFT = 2;
+
+    /**
+     * Every priority, by ordinal.
+     */
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    /**
+     * Utility class - there's nothing to create.
+     */
+    private EventSnapshot() {
+    }
+
+    /**
+     * Save a single scheduler's live events.
+     *
+     * @param file     where to write the snapshot
+     * @param events   the scheduler to save
+     * @param registry the callbacks that should be saved
+     * @return how many events were saved
+     * @throws IOException if the file couldn't be written
+     */
+    public static int save(Path file, Events events, CallbackRegistry registry) throws IOException {
+        Map<String, Events> channels = new HashMap<>();
+        channels.put(null, events);
+        return save(file, channels, registry);
+    }
+
+    /**
+     * Save every StringEvents channel's live events.
+     *
+     * @param file     where to write the snapshot
+     * @param registry the callbacks that should be saved
+     * @return how many events were saved
+     * @throws IOException if the file couldn't be written
+     */
+    public static int saveStringEvents(Path file, CallbackRegistry registry) throws IOException {
+        return save(file, StringEvents.events, registry);
+    }
+
+    /**
+     * Restore a snapshot into a single scheduler.
+     * <p>
+     * Every channel in the snapshot goes into the same scheduler. The
+     * restored events are added on top of whatever's already scheduled.
+     * </p>
+     *
+     * @param file     the snapshot to restore
+     * @param events   the scheduler to restore into
+     * @param registry where to look the callbacks up
+     * @return how many events were restored
+     * @throws IOException if the file couldn't be read, or isn't a snapshot
+     */
+    public static int restore(Path file, Events events, CallbackRegistry registry) throws IOException {
+        return restore(file, events, registry, false);
+    }
+
+    /**
+     * Restore a snapshot into StringEvents, putting every event back on
+     * the channel it was saved from.
+     *
+     * @param file     the snapshot to restore
+     * @param registry where to look the callbacks up
+     * @return how many events were restored
+     * @throws IOException if the file couldn't be read, or isn't a snapshot
+     */
+    public static int restoreStringEvents(Path file, CallbackRegistry registry) throws IOException {
+        return restore(file, null, registry, true);
+    }
+
+    /**
+     * Save some channels' live events.
+     *
+     * @param file     where to write the snapshot
+     * @param channels the channels to save, by name
+     * @param registry the callbacks that should be saved
+     * @return how many events were saved
+     * @throws IOException if the file couldn't be written
+     */
+    private static int save(Path file,
+                            Map<String, Events> channels,
+                            CallbackRegistry registry) throws IOException {
+        // Work out exactly how big the file is going to be first, so it
+        // can be mapped in one go.
+        HashMap<String, Integer> idIndex = new HashMap<>();
+        ArrayList<byte[]> ids = new ArrayList<>();
+        ArrayList<byte[]> names = new ArrayList<>();
+        ArrayList<Events> schedulers = new ArrayList<>();
+        int[] counts = new int[channels.size()];
+        long size = 4 + 4 + 8 + 4 + 4;
+        int channel = 0;
+        for (Map.Entry<String, Events> entry : channels.entrySet()) {
+            // A group that's been cleared only clears its channels the next
+            // time they're touched, so make sure nothing that's already
+            // been cleared gets saved.
+            ChannelGroup group = entry.getValue().group;
+            if (group != null && group.settledAt != ChannelGroup.epoch) {
+                group.settle();
+            }
+            byte[] name = entry.getKey() == null ? null : entry.getKey().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            schedulers.add(entry.getValue());
+            size += 2 + (name == null ? 0 : name.length) + 4;
+            for (ScheduledEvent event = entry.getValue().firstLive(); event != null; event = event.liveNext) {
+                String id = savable(event) ? registry.idOf(event.callback) : null;
+                if (id == null) {
+                    continue;
+                }
+                if (!idIndex.containsKey(id)) {
+                    byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+                    idIndex.put(id, ids.size());
+                    ids.add(bytes);
+                    size += 2 + bytes.length;
+                }
+                counts[channel]++;
+                size += EVENT_BYTES;
+            }
+            channel++;
+        }
+        int saved = 0;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        boolean moved = false;
+        try {
+            try (FileChannel fileChannel = FileChannel.open(
+                    temp,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING
+            )) {
+                MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC);
+                buffer.putInt(VERSION);
+                buffer.putLong(System.currentTimeMillis());
+                buffer.putInt(ids.size());
+                for (byte[] id : ids) {
+                    buffer.putShort((short) id.length);
+                    buffer.put(id);
+                }
+                buffer.putInt(schedulers.size());
+                for (int i = 0; i < schedulers.size(); i++) {
+                    byte[] name = names.get(i);
+                    if (name == null) {
+                        buffer.putShort((short) -1);
+                    } else {
+                        buffer.putShort((short) name.length);
+                        buffer.put(name);
+                    }
+                    buffer.putInt(counts[i]);
+                    Events events = schedulers.get(i);
+                    long clockNow = events.getClock().nanoTime();
+                    for (ScheduledEvent event = events.firstLive(); event != null; event = event.liveNext) {
+                        String id = savable(event) ? registry.idOf(event.callback) : null;
+                        if (id == null) {
+                            continue;
+                        }
+                        int flags = 0;
+                        if (event.repeatMode == RepeatMode.FIXED_RATE) {
+                            flags |= FIXED_RATE;
+                        }
+                        if (event.overrunPolicy == OverrunPolicy.SKIP) {
+                            flags |= SKIP;
+                        }
+                        flags |= event.priority << PRIORITY_SHIFT;
+                        buffer.putInt(idIndex.get(id));
+                        buffer.put((byte) event.state);
+                        buffer.put((byte) flags);
+                        buffer.putLong(event.deadline - clockNow);
+                        buffer.putLong(event.duration);
+                        buffer.putLong(event.period);
+                        saved++;
+                    }
+                }
+                buffer.force();
+                fileChannel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Restore a snapshot.
+     *
+     * @param file     the snapshot to restore
+     * @param events   the scheduler to restore into, if not by channel
+     * @param registry where to look the callbacks up
+     * @param byName   should events go back to the StringEvents channel
+     *                 they were saved from?
+     * @return how many events were restored
+     * @throws IOException if the file couldn't be read, or isn't a snapshot
+     */
+    private static int restore(Path file,
+                               Events events,
+                               CallbackRegistry registry,
+                               boolean byName) throws IOException {
+        int restored = 0;
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " isn't a scheduler snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION && version != 1) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            long downtime = Math.max(0, System.currentTimeMillis() - buffer.getLong()) * 1_000_000L;
+            TimedLifecycle[] callbacks = new TimedLifecycle[buffer.getInt()];
+            for (int i = 0; i < callbacks.length; i++) {
+                callbacks[i] = registry.get(readString(buffer, buffer.getShort()));
+            }
+            int channels = buffer.getInt();
+            for (int c = 0; c < channels; c++) {
+                short length = buffer.getShort();
+                String name = length < 0 ? null : readString(buffer, length);
+                Events target = events;
+                if (byName) {
+                    target = StringEvents.channel(StringEvents.handle(name == null ? "" : name));
+                }
+                int count = buffer.getInt();
+                for (int i = 0; i < count; i++) {
+                    TimedLifecycle callback = callbacks[buffer.getInt()];
+                    int state = buffer.get();
+                    int flags = buffer.get();
+                    long left = buffer.getLong() - downtime;
+                    long duration = buffer.getLong();
+                    long period = buffer.getLong();
+                    if (callback == null) {
+                        continue;
+                    }
+                    ScheduledEvent event = target.restore(
+                            callback,
+                            state,
+                            left,
+                            duration,
+                            period,
+                            (flags & FIXED_RATE) != 0 ? RepeatMode.FIXED_RATE : RepeatMode.FIXED_DELAY,
+                            (flags & SKIP) != 0 ? OverrunPolicy.SKIP : OverrunPolicy.CATCH_UP
+                    );
+                    if (version > 1) {
+                        event.setPriority(PRIORITIES[(flags >>> PRIORITY_SHIFT) & 3]);
+                    }
+                    restored++;
+                }
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Can an event be saved at all?
+     * <p>
+     * Events which have already closed (an offloaded close() that's
+     * still running) are as good as gone, so they aren't.
+     * </p>
+     *
+     * @param event the event to check
+     * @return true if the event should be saved
+     */
+    private static boolean savable(ScheduledEvent event) {
+        return event.state == ScheduledEvent.PENDING
+                || event.state == ScheduledEvent.WAITING
+                || event.state == ScheduledEvent.OPEN;
+    }
+
+    /**
+     * Read a UTF-8 string out of a buffer.
+     *
+     * @param buffer the buffer to read from
+     * @param length how many bytes long the string is
+     * @return the string
+     */
+    private static String readString(MappedByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
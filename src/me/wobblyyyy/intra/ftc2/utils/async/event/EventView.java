@@ -0,0 +1,217 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only, live view of the events in a scheduler that are in a
+ * certain part of their lifecycle.
+ * <p>
+ * Nothing is ever copied. Iterating walks the scheduler's own list of
+ * live events and skips anything that's in a different state, and
+ * {@link EventView#size()} comes straight from counters the scheduler
+ * keeps anyway, so it's O(1). Each scheduler has exactly one view per
+ * state, and each view is its own iterator - calling
+ * {@link EventView#iterator()} just rewinds it. That's what makes it
+ * allocation-free, but it also means:
+ * <ul>
+ *     <li>
+ *         You can't iterate the same view twice at the same time (in a
+ *         nested loop, say). Two different views are fine.
+ *     </li>
+ *     <li>
+ *         It's only safe on the thread ticking the scheduler, between
+ *         ticks. Don't hang onto an iteration across a tick, and don't
+ *         schedule or cancel anything halfway through one.
+ *     </li>
+ * </ul>
+ * </p>
+ * <p>
+ * The views are:
+ * <ul>
+ *     <li>
+ *         {@link EventView#PENDING} - scheduled, but not opened yet,
+ *         including events still waiting out a delay.
+ *     </li>
+ *     <li>
+ *         {@link EventView#OPEN} - opened and waiting for their deadline,
+ *         with during() running if they have one.
+ *     </li>
+ *     <li>
+ *         {@link EventView#CLOSING} - past their deadline, but close()
+ *         hasn't finished yet. That's events left over by a budgeted
+ *         tick, and offloaded events whose close() is still running.
+ *     </li>
+ * </ul>
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public final class EventView implements Iterable<ScheduledEvent>, Iterator<ScheduledEvent> {
+    /**
+     * Events which haven't been opened yet.
+     */
+    public static final int PENDING = 0;
+
+    /**
+     * Events which are open, and haven't expired yet.
+     */
+    public static final int OPEN = 1;
+
+    /**
+     * Events which have expired, but haven't finished closing.
+     */
+    public static final int CLOSING = 2;
+
+    /**
+     * The scheduler being viewed.
+     */
+    private final Events events;
+
+    /**
+     * Which state this view shows.
+     */
+    private final int kind;
+
+    /**
+     * The next event the iterator will return, or null once it's done.
+     */
+    private ScheduledEvent cursor;
+
+    /**
+     * Create a new view over a scheduler.
+     *
+     * @param events the scheduler to view
+     * @param kind   which state to show
+     */
+    EventView(Events events, int kind) {
+        this.events = events;
+        this.kind = kind;
+    }
+
+    /**
+     * Which state this view shows.
+     *
+     * @return {@link EventView#PENDING}, {@link EventView#OPEN} or
+     * {@link EventView#CLOSING}
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * How many events are in this view. This is O(1).
+     *
+     * @return the number of events in this state
+     */
+    public int size() {
+        return events.count(kind);
+    }
+
+    /**
+     * Are there no events in this view at all?
+     *
+     * @return true if nothing is in this state
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Get the first event in this view, without starting an iteration.
+     *
+     * @return the oldest event in this state, or null if there isn't one
+     */
+    public ScheduledEvent first() {
+        return skip(events.firstLive());
+    }
+
+    /**
+     * Rewind the view back to the start, and return it.
+     *
+     * @return this view, ready to iterate over again
+     */
+    @Override
+    public Iterator<ScheduledEvent> iterator() {
+        cursor = skip(events.firstLive());
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor != null;
+    }
+
+    @Override
+    public ScheduledEvent next() {
+        ScheduledEvent event = cursor;
+        if (event == null) {
+            throw new NoSuchElementException();
+        }
+        cursor = skip(event.liveNext);
+        return event;
+    }
+
+    /**
+     * Starting from an event, find the first one that belongs in this
+     * view.
+     *
+     * @param event the event to start from
+     * @return the first matching event, or null if there aren't any
+     */
+    private ScheduledEvent skip(ScheduledEvent event) {
+        while (event != null && classify(event) != kind) {
+            event = event.liveNext;
+        }
+        return event;
+    }
+
+    /**
+     * Work out which view a live event belongs in.
+     * <p>
+     * Between ticks, an open event that isn't in the queue can only be
+     * one a budgeted tick didn't get around to closing.
+     * </p>
+     *
+     * @param event the event to classify
+     * @return the view the event belongs in
+     */
+    static int classify(ScheduledEvent event) {
+        switch (event.state) {
+            case ScheduledEvent.OPEN:
+                return event.queueIndex < 0 ? CLOSING : OPEN;
+            case ScheduledEvent.CLOSED:
+                return CLOSING;
+            default:
+                return PENDING;
+        }
+    }
+}
@@ -29,12 +29,47 @@
 package me.wobblyyyy.intra.ftc2.utils.async.event;
 
 import me.wobblyyyy.intra.ftc2.utils.Timed;
+import me.wobblyyyy.intra.ftc2.utils.TimedLifecycle;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Provides a custom asynchronous scheduler.
  * <p>
+ * Opened events are kept in an {@link EventQueue}, which works out when
+ * they've expired. By default that's a {@link HeapEventQueue}, but if
+ * you've got a few thousand timeouts going at once, you can hand the
+ * constructor a {@link TimingWheel} instead.
+ * </p>
+ * <p>
+ * Time comes from a {@link Clock}, which is System.nanoTime() unless
+ * you say otherwise. Durations passed to the schedule methods are still
+ * in milliseconds unless a TimeUnit is given, but deadlines are kept in
+ * nanoseconds, so sub-millisecond events work just fine.
+ * </p>
+ * <p>
+ * Pretty much everything in here must only be called from the thread
+ * that ticks the scheduler. The exceptions are the submit methods, which
+ * are safe to call from any thread at all - they're handed over through
+ * a lock-free queue and picked up at the start of the next tick.
+ * </p>
+ * <p>
+ * Callbacks normally run right on the ticking thread, too. If one of
+ * them is slow (file I/O, say), it holds up every other event in the
+ * scheduler. Events like that can be offloaded instead - see
+ * {@link Events#offload(long, TimeUnit, TimedLifecycle, Executor)}.
+ * </p>
+ * <p>
  * TODO: Add a way to query / set based on a string 'over key.'
  * </p>
  *
@@ -43,10 +78,29 @@ import java.util.HashMap;
 public class Events {
     public static me.wobblyyyy.intra.ftc2.utils.async.event.Events Events = new Events();
 
+    /**
+     * The executor offloaded events use if they aren't given one.
+     * <p>
+     * It's a cached pool of daemon threads, which is about as close to
+     * a thread per callback as you can get without virtual threads. It
+     * isn't created until something actually gets offloaded.
+     * </p>
+     */
+    private static volatile ExecutorService offloadExecutor = null;
+
+    /**
+     * Cache of which Timed classes actually override during().
+     * <p>
+     * Asking reflection every single time would be silly, so the
+     * answer is worked out once per class and then kept around here.
+     * </p>
+     */
+    private static final ConcurrentHashMap<Class<?>, Boolean> overridesDuring = new ConcurrentHashMap<>();
+
     public long initializationTime = System.currentTimeMillis();
 
     /**
-     * A list of all the timed events.
+     * A queue of all the opened timed events.
      * <p>
      * This doesn't use any Java's default stuff for
      * asynchronous functions, mostly because FTC is
@@ -57,218 +111,2206 @@ public class Events {
      * first place - provide an event-driven environment.
      * </p>
      * <p>
-     * The Integer represents the maximum epoch which this
-     * code is allowed to execute past.
-     * The Timed object is an extension of TimedCore which
-     * just provides a couple Runnables the user can modify.
+     * Events used to be stored in a HashMap, keyed by the
+     * maximum epoch they were allowed to execute past. That
+     * meant no two events could share a deadline, and every
+     * tick had to look at every event. The queue only hands
+     * back events which have actually expired.
      * </p>
+     */
+    private final EventQueue queue;
+
+    /**
+     * Where the scheduler gets the current time from.
+     */
+    private final Clock clock;
+
+    /**
+     * Events which have been scheduled, but haven't been opened yet.
      * <p>
-     * Once again, I know global / static variables are like
-     * bad or something, but this being static makes it a lot better
-     * at absolutely everything, of course. 100%.
+     * While the scheduler is ticking, this doubles as the deferred
+     * insertion buffer. Whatever the tick is opening has already been
+     * swapped out into {@link Events#toBeOpened}, so anything a callback
+     * schedules lands in here instead and gets opened next tick, rather
+     * than messing with anything the current tick is still working on.
      * </p>
      */
-    public HashMap<Long, Timed> events = new HashMap<>();
+    private EventBuffer opening = new EventBuffer();
 
-    public static Timed getNewTimed(final Timed oldTimed) {
-        Timed newTimed = new Timed() {
-            @Override
-            public Runnable open() {
-                return oldTimed.open();
-            }
+    /**
+     * Events being opened by the current tick.
+     */
+    private EventBuffer toBeOpened = new EventBuffer();
 
-            @Override
-            public Runnable during() {
-                return oldTimed.during();
-            }
+    /**
+     * Events having during() run by the current tick.
+     */
+    private final EventBuffer toBeDuring = new EventBuffer();
 
-            @Override
-            public Runnable close() {
-                return oldTimed.close();
-            }
-        };
-        newTimed.ran = false;
-        return newTimed;
-    }
+    /**
+     * Events the current tick is adding to the queue, all in one go.
+     */
+    private final EventBuffer toBeQueued = new EventBuffer();
 
     /**
-     * (Hopefully) Will run every cycle of a loop. It'll check the
-     * time and make sure everything is working out as it should be.
-     * <p>
-     * This uses a mark-and-remove system to avoid concurrent
-     * modification exceptions. It's a little bit slower,
-     * but at least you won't get impossible to fix
-     * errors. Yay. Exciting, right!!
-     * </p>
+     * Events being closed by the current tick.
+     */
+    private final EventBuffer toBeClosed = new EventBuffer();
+
+    /**
+     * Schedule and cancel requests made from other threads.
      * <p>
-     * 'Open' will always run once before close function,
-     * even if the duration is incredibly small (1 or 0)
+     * These are drained all at once at the very start of every tick.
      * </p>
+     */
+    private final SubmissionQueue submissions = new SubmissionQueue();
+
+    /**
+     * The most live events the scheduler's allowed to have.
+     */
+    private volatile int capacity = Integer.MAX_VALUE;
+
+    /**
+     * What happens when something's scheduled while the scheduler's full.
+     */
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+
+    /**
+     * How long a blocked submitter waits for room, in nanoseconds, or
+     * {@code Long.MAX_VALUE} to wait as long as it takes.
+     */
+    private volatile long blockNanos = Long.MAX_VALUE;
+
+    /**
+     * How many events were live at the end of the last tick, for other
+     * threads to check the capacity against.
+     */
+    private volatile int published = 0;
+
+    /**
+     * How many schedule requests have been submitted from other threads,
+     * but not picked up yet.
+     */
+    private final AtomicInteger submitted = new AtomicInteger();
+
+    /**
+     * How many submitting threads are waiting for room.
+     */
+    private volatile int waiting = 0;
+
+    /**
+     * What waiting submitters wait on.
+     */
+    private final Object room = new Object();
+
+    /**
+     * Is the scheduler in the middle of a tick?
      * <p>
-     * TODO: This needs some serious optimization.
-     * I couldn't really figure out a much better way of
-     * doing what I'm trying to, and this seems to work,
-     * but whoever is reading this, if you can figure out
-     * a more efficient way of getting this to run, please
-     * let me know as soon as possible so there's no longer
-     * this absolute monstrosity in the middle of this
-     * relatively clean codebase.
+     * Scheduling something from inside a callback won't start another
+     * tick while this is true, and neither will calling tick() itself.
      * </p>
      */
-    public void tick() {
-        long now = System.currentTimeMillis();
-        HashMap<Long, Timed> toBeOpened1 = new HashMap<>();
-        HashMap<Long, Timed> toBeOpened2 = new HashMap<>();
-        HashMap<Long, Timed> toBeDuring = new HashMap<>();
-        HashMap<Long, Timed> toBeClosed = new HashMap<>();
-        HashMap<Long, Timed> toRemain = new HashMap<>();
-        for (HashMap.Entry<Long, Timed> entry : events.entrySet()) {
-            long key = entry.getKey();
-            Timed value = entry.getValue();
-            if (now > key && value.ran) {
-                toBeClosed.put(key, value);
-            } else {
-                if (value.ran) {
-                    toBeDuring.put(key, value);
-                } else {
-                    toBeOpened1.put(key, value);
-                }
-            }
-        }
-        events = new HashMap<>();
-        for (HashMap.Entry<Long, Timed> entry : toBeOpened1.entrySet()) {
-            long key = entry.getKey();
-            Timed value = entry.getValue();
-            value.ran = true;
-            toBeOpened2.put(key, value);
-        }
-        for (HashMap.Entry<Long, Timed> entry : toBeOpened2.entrySet()) {
-            entry.getValue().open().run();
-            events.put(entry.getKey(), entry.getValue());
-        }
-        for (HashMap.Entry<Long, Timed> entry : toBeDuring.entrySet()) {
-            entry.getValue().during().run();
-            events.put(entry.getKey(), entry.getValue());
-        }
-        for (HashMap.Entry<Long, Timed> entry : toBeClosed.entrySet()) {
-            entry.getValue().close().run();
-        }
+    private boolean ticking = false;
+
+    /**
+     * The loop driving this scheduler, if there is one. It gets woken up
+     * whenever another thread submits something.
+     */
+    volatile EventLoop loop;
+
+    /**
+     * The heartbeat a {@link Watchdog} is watching this scheduler through,
+     * if there is one. Every inline callback is noted on it, so a stall
+     * can be pinned on whichever callback was running.
+     */
+    volatile Watchdog.Heartbeat heartbeat;
+
+    /**
+     * The StringEvents group this scheduler is the channel for, if any.
+     * Groups can be cleared without touching their channels, so this is
+     * checked before the scheduler is ticked or anything's added to it.
+     */
+    ChannelGroup group;
+
+    /**
+     * The first opened event which needs during() run every tick.
+     */
+    private ScheduledEvent activeHead;
+
+    /**
+     * The last opened event which needs during() run every tick.
+     */
+    private ScheduledEvent activeTail;
+
+    /**
+     * The first live (scheduled, but not yet closed) event.
+     */
+    private ScheduledEvent liveHead;
+
+    /**
+     * The last live (scheduled, but not yet closed) event.
+     */
+    private ScheduledEvent liveTail;
+
+    /**
+     * How many events are live.
+     */
+    private int liveCount = 0;
+
+    /**
+     * How many events are open.
+     */
+    private int openCount = 0;
+
+    /**
+     * How many events are in the list of events needing during().
+     */
+    private int activeCount = 0;
+
+    /**
+     * Numbers about how this scheduler is doing, updated every tick.
+     */
+    private final EventMetrics metrics = new EventMetrics();
+
+    /**
+     * Events that expired, but that a budgeted tick ran out of time to
+     * close. They're kept in deadline order and closed first thing on the
+     * next tick.
+     */
+    private final EventBuffer backlog = new EventBuffer();
+
+    /**
+     * How many events in the backlog are still live. Events cancelled
+     * while they're in the backlog stay in it until the next tick skips
+     * over them, so its size isn't quite the same thing.
+     */
+    private int backlogCount = 0;
+
+    /**
+     * How many offloaded events have expired, but are still waiting for
+     * their close() to finish.
+     */
+    private int closingCount = 0;
+
+    /**
+     * Events scheduled with a coalescing key which haven't opened yet,
+     * by key.
+     */
+    private final HashMap<Object, ScheduledEvent> coalesced = new HashMap<>();
+
+    /**
+     * The scheduler's pending, open and closing views. They're created
+     * once and reused forever.
+     */
+    private final EventView[] views = {
+            new EventView(this, EventView.PENDING),
+            new EventView(this, EventView.OPEN),
+            new EventView(this, EventView.CLOSING)
+    };
+
+    /**
+     * Used to order events which share the same deadline.
+     */
+    private long sequence = 0;
+
+    /**
+     * The last event of each callback class in the list of events needing
+     * during(), or null if during()s aren't being grouped by class.
+     */
+    private HashMap<Class<?>, ScheduledEvent> groupTails = null;
+
+    /**
+     * Where everything this scheduler does is written down, or null if
+     * it isn't being traced.
+     */
+    private TraceRecorder trace;
+
+    /**
+     * The channel this scheduler's records are tagged with.
+     */
+    private int traceChannel;
+
+    /**
+     * Create a new scheduler, backed by a {@link HeapEventQueue} and
+     * the {@link Clock#SYSTEM system clock}.
+     */
+    public Events() {
+        this(Clock.SYSTEM, new HeapEventQueue());
     }
 
     /**
-     * Another overloaded method for the default scheduler
+     * Create a new scheduler backed by a specific queue.
      *
-     * @param duration  how long the event should last
-     * @param timed     the actions of the event
-     * @param repeating should the event repeat or not
+     * @param queue the queue opened events should be kept in. This
+     *              shouldn't be shared with any other scheduler.
      */
-    public void schedule(long duration, Timed timed, boolean repeating) {
-        schedule(duration, 0, timed, repeating);
+    public Events(EventQueue queue) {
+        this(Clock.SYSTEM, queue);
     }
 
     /**
-     * Overloaded method for the default scheduler.
+     * Create a new scheduler which gets its time from a specific clock.
      *
-     * @param duration how long the event should last
-     * @param timed    the actual event
+     * @param clock the clock the scheduler should use
      */
-    public void schedule(long duration, Timed timed) {
-        schedule(duration, 0, timed, false);
+    public Events(Clock clock) {
+        this(clock, new HeapEventQueue());
     }
 
     /**
-     * Wrapper for the default put function, schedules an event.
-     * <p>
-     * If the delay is anything other than zero, create a new
-     * scheduled event, with a duration of however long the
-     * delay is. Once that event expires and the close method
-     * is run, schedule another event, with the actual duration
-     * and the actual event included.
-     * </p>
+     * Create a new scheduler with a specific clock and queue.
+     *
+     * @param clock the clock the scheduler should use
+     * @param queue the queue opened events should be kept in. This
+     *              shouldn't be shared with any other scheduler.
+     */
+    public Events(Clock clock, EventQueue queue) {
+        this.clock = clock;
+        this.queue = queue;
+        queue.advance(clock.nanoTime());
+    }
+
+    /**
+     * Start (or stop) writing down everything this scheduler does.
      * <p>
-     * If the delay IS zero, however, calculate the expiration
-     * date of the event and schedule an event for that long.
+     * Every tick, callback, schedule, cancel and deadline change is
+     * written to the recorder, and can be played back later with a
+     * {@link TraceReplayer}. With no recorder, tracing costs a single
+     * null check per callback.
      * </p>
+     *
+     * @param trace   the recorder to write to, or null to stop tracing
+     * @param channel the channel this scheduler's records are tagged
+     *                with, so several schedulers can share one recorder
+     */
+    public void setTrace(TraceRecorder trace, int channel) {
+        this.trace = trace;
+        this.traceChannel = channel;
+    }
+
+    /**
+     * Limit how many live events this scheduler can have.
      * <p>
-     * Don't worry if this doesn't make any sense - this
-     * method will handle any confusion you have and just so perfectly
-     * schedule everything nicely for you.
+     * Normally a scheduler just keeps growing, and something scheduling
+     * events faster than they close makes every tick a little slower than
+     * the last, until something runs out of memory. With a capacity, a
+     * scheduler that's full handles anything else that's scheduled with
+     * its {@link OverflowPolicy}, and counts it in its
+     * {@link EventMetrics}, so overload looks the same every time.
      * </p>
      * <p>
-     * In general, when scheduling an event, you're going to use
-     * the open and close methods contained within Timed.
-     * *** MAKE SURE NOT TO FORGET TO STOP ANYTHING ***
-     * ***   YOU NEED TO STOP IN THE CLOSE METHOD!  ***
+     * "Live" means scheduled and not yet closed or cancelled - waiting,
+     * pending, open and closing events all count. The check happens when
+     * an event is scheduled. Periodic events rearming themselves don't
+     * count as new. Events scheduled from other threads are checked
+     * when they're submitted (against how full the scheduler was at the
+     * end of the last tick) and again when they're picked up, so a burst
+     * of submissions can't sneak past it either.
      * </p>
      * <p>
-     * Although it might be a little bit annoying, the code
-     * to schedule a timed event is a lot longer. This is mostly
-     * because every timed event actually has to spawn two events
-     * with slightly different expiration dates. And not only that,
-     * but because 'ran' is a boolean stored in the Timed element,
-     * it has to be manually set to false every single time, which
-     * is why I clone the original timed and set the value to false.
-     * If you're reading this and you have a better method of doing
-     * this, please let me know, I'd much rather not have this poorly
-     * written code just lying here.
+     * This has to be called from the thread ticking the scheduler.
+     * Lowering the capacity doesn't drop anything that's already live.
+     * With {@link OverflowPolicy#BLOCK}, submitters wait for room as long
+     * as it takes.
      * </p>
      *
-     * @param duration  how long the event should last
-     * @param delay     how long until the event is propagated
-     * @param timed     the actual event which should be run
-     * @param repeating whether or not the event should repeat
+     * @param capacity the most live events allowed, or
+     *                 {@code Integer.MAX_VALUE} for no limit
+     * @param policy   what to do with events scheduled while it's full
+     * @see Events#setCapacity(int, OverflowPolicy, long, TimeUnit)
      */
-    public void schedule(final long duration, int delay, final Timed timed, final boolean repeating) {
-        if (delay != 0) {
-            schedule(delay, 0, new Timed() {
-                @Override
-                public Runnable close() {
-                    return new Runnable() {
-                        @Override
-                        public void run() {
-                            schedule(duration, 0, timed, repeating);
-                        }
-                    };
+    public void setCapacity(int capacity, OverflowPolicy policy) {
+        setCapacity(capacity, policy, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Limit how many live events this scheduler can have, with a timeout
+     * for {@link OverflowPolicy#BLOCK}.
+     *
+     * @param capacity the most live events allowed, or
+     *                 {@code Integer.MAX_VALUE} for no limit
+     * @param policy   what to do with events scheduled while it's full
+     * @param timeout  how long a blocked submitter waits for room before
+     *                 it's rejected, or {@code Long.MAX_VALUE} to wait as
+     *                 long as it takes. Only used by BLOCK.
+     * @param unit     the unit the timeout is in
+     * @see Events#setCapacity(int, OverflowPolicy)
+     */
+    public void setCapacity(int capacity, OverflowPolicy policy, long timeout, TimeUnit unit) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        this.overflowPolicy = policy;
+        this.blockNanos = unit.toNanos(timeout);
+        this.capacity = capacity;
+        published = liveCount;
+        if (waiting > 0) {
+            synchronized (room) {
+                room.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Get the most live events this scheduler can have.
+     *
+     * @return the scheduler's capacity, or {@code Integer.MAX_VALUE} if
+     * there isn't one
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get what happens when something's scheduled while the scheduler's
+     * full.
+     *
+     * @return the scheduler's overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Check a new event against the capacity, on the ticking thread.
+     *
+     * @param event    the new event
+     * @param canThrow can a rejection be thrown, or does the event just
+     *                 have to be cancelled? Picked up submissions can't
+     *                 throw, since whoever submitted them is long gone.
+     * @return true if the event can go in, false if it's been cancelled
+     * @throws RejectedExecutionException if the scheduler's full, the
+     *                                    policy is to reject, and the
+     *                                    rejection can be thrown
+     */
+    private boolean admit(ScheduledEvent event, boolean canThrow) {
+        if (liveCount < capacity) {
+            return true;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                while (liveCount >= capacity && liveHead != null && cancel(liveHead)) {
+                    metrics.recordDroppedOldest();
                 }
-            }, false);
-        } else {
-            if (events.containsKey(System.currentTimeMillis() + duration)) {
-                long st = System.currentTimeMillis() + duration + 1;
-                boolean hasBeenSlotted = false;
-                while (!hasBeenSlotted) {
-                    if (!events.containsKey(st)) {
-                        events.put(st, timed);
-                        hasBeenSlotted = true;
-                    } else {
-                        st++;
-                    }
+                return true;
+            case DROP_NEWEST:
+                event.state = ScheduledEvent.CANCELLED;
+                metrics.recordDroppedNewest();
+                return false;
+            default:
+                event.state = ScheduledEvent.CANCELLED;
+                metrics.recordRejected();
+                if (canThrow) {
+                    throw new RejectedExecutionException("Scheduler is full (capacity " + capacity + ")");
                 }
-            } else {
-                events.put(System.currentTimeMillis() + duration, timed);
-            }
-            if (repeating) {
-                long st = System.currentTimeMillis() + duration;
-                boolean hasBeenSlotted = false;
-                while (!hasBeenSlotted) {
-                    if (!events.containsKey(st)) {
-                        events.put(st, new Timed() {
-                            @Override
-                            public Runnable close() {
-                                return new Runnable() {
-                                    @Override
-                                    public void run() {
-                                        schedule(duration, 0, getNewTimed(timed), true);
-                                    }
-                                };
-                            }
-                        });
-                        hasBeenSlotted = true;
-                    } else {
-                        st++;
+                return false;
+        }
+    }
+
+    /**
+     * Make room for an event being submitted from another thread.
+     *
+     * @return true if the event should be submitted, false if it's been
+     * dropped
+     * @throws RejectedExecutionException if there's no room, and either
+     *                                    the policy is to reject, or the
+     *                                    policy is to block and the wait
+     *                                    timed out or was interrupted
+     */
+    private boolean reserve() {
+        int limit = capacity;
+        OverflowPolicy policy = overflowPolicy;
+        if (limit == Integer.MAX_VALUE || policy == OverflowPolicy.DROP_OLDEST) {
+            // Room gets made once it's picked up, if it needs to be.
+            submitted.incrementAndGet();
+            return true;
+        }
+        if (tryReserve(limit)) {
+            return true;
+        }
+        if (policy == OverflowPolicy.DROP_NEWEST) {
+            metrics.recordDroppedNewest();
+            return false;
+        }
+        if (policy == OverflowPolicy.REJECT) {
+            metrics.recordRejected();
+            throw new RejectedExecutionException("Scheduler is full (capacity " + limit + ")");
+        }
+        metrics.recordBlocked();
+        long timeout = blockNanos;
+        // Measured as time spent rather than as a deadline, so even a huge
+        // timeout can't overflow.
+        long start = System.nanoTime();
+        synchronized (room) {
+            waiting++;
+            try {
+                while (true) {
+                    if (tryReserve(capacity)) {
+                        return true;
                     }
+                    if (timeout == Long.MAX_VALUE) {
+                        room.wait();
+                        continue;
+                    }
+                    long left = timeout - (System.nanoTime() - start);
+                    if (left <= 0) {
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(room, left);
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for room", e);
+            } finally {
+                waiting--;
             }
-            tick();
         }
+        metrics.recordBlockTimeout();
+        throw new RejectedExecutionException("Timed out waiting for room (capacity " + limit + ")");
+    }
+
+    /**
+     * Claim a spot for a submission, if there's room.
+     *
+     * @param limit the capacity to check against
+     * @return true if a spot was claimed
+     */
+    private boolean tryReserve(int limit) {
+        while (true) {
+            int pending = submitted.get();
+            if (published + pending >= limit) {
+                return false;
+            }
+            if (submitted.compareAndSet(pending, pending + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Turn grouping during()s by callback class on or off.
+     * <p>
+     * Normally, during()s run in the order their events were opened, so
+     * with a lot of different callback classes, every call goes to a
+     * different class than the last one. The CPU can't predict where a
+     * call like that is going, and a lot of the time the code it's going
+     * to isn't in the cache either. With grouping on, events are kept
+     * next to everything else of the same class, so all of one class's
+     * during()s run back to back, then all of the next class's, and so
+     * on. Keeping them grouped is a single map lookup whenever an event
+     * starts or stops needing during().
+     * </p>
+     * <p>
+     * What this doesn't do is let the JIT inline anything. It profiles a
+     * call site by every class it's ever seen there, not just the last
+     * few, and there's still only the one call site - so with more than
+     * two classes it's still megamorphic, grouped or not. The difference
+     * is purely in how predictable the calls are, and that can easily be
+     * outweighed by walking the events in a different order than they
+     * were allocated in, which the cache doesn't like. There's a
+     * benchmark in {@code me.wobblyyyy.intra.ftc2.utils.async.event.bench}
+     * to check whether it's worth it for a particular mix of callbacks -
+     * it's off by default for a reason.
+     * </p>
+     * <p>
+     * Priorities still come first, and opens and closes are still run
+     * earliest deadline first. Only the order of during()s inside a
+     * priority changes. Lambdas and anonymous classes count as classes
+     * of their own. This has to be called from the thread ticking the
+     * scheduler.
+     * </p>
+     *
+     * @param grouped true to group during()s by class, false to run them
+     *                in the order their events were opened in
+     */
+    public void setGroupedDispatch(boolean grouped) {
+        if (grouped == (groupTails != null)) {
+            return;
+        }
+        ScheduledEvent event = activeHead;
+        activeHead = null;
+        activeTail = null;
+        activeCount = 0;
+        groupTails = grouped ? new HashMap<>() : null;
+        while (event != null) {
+            ScheduledEvent next = event.activeNext;
+            linkActive(event);
+            event = next;
+        }
+    }
+
+    /**
+     * Are during()s being grouped by callback class?
+     *
+     * @return true if grouped dispatch is on
+     * @see Events#setGroupedDispatch(boolean)
+     */
+    public boolean isGroupedDispatch() {
+        return groupTails != null;
+    }
+
+    /**
+     * Get the clock this scheduler gets its time from.
+     *
+     * @return the scheduler's clock
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    public static Timed getNewTimed(final Timed oldTimed) {
+        Timed newTimed = new Timed() {
+            @Override
+            public Runnable open() {
+                return oldTimed.open();
+            }
+
+            @Override
+            public Runnable during() {
+                return oldTimed.during();
+            }
+
+            @Override
+            public Runnable close() {
+                return oldTimed.close();
+            }
+        };
+        newTimed.ran = false;
+        return newTimed;
+    }
+
+    /**
+     * Does a Timed do anything during its during() phase?
+     * <p>
+     * If a Timed's class doesn't override during() (or onDuring()), there's no reason
+     * to call it every tick, and those events can sit in the queue
+     * without costing anything until they expire.
+     * </p>
+     *
+     * @param timed the Timed to check
+     * @return true if during() or onDuring() has been overridden
+     */
+    static boolean hasDuring(TimedLifecycle timed) {
+        Class<?> type = timed.getClass();
+        Boolean result = overridesDuring.get(type);
+        if (result == null) {
+            try {
+                Class<?> declaring = type.getMethod("onDuring").getDeclaringClass();
+                if (declaring == TimedLifecycle.class) {
+                    result = false;
+                } else if (declaring == Timed.class) {
+                    result = type.getMethod("during").getDeclaringClass() != Timed.class;
+                } else {
+                    result = true;
+                }
+            } catch (NoSuchMethodException e) {
+                result = true;
+            }
+            overridesDuring.put(type, result);
+        }
+        return result;
+    }
+
+    /**
+     * (Hopefully) Will run every cycle of a loop. It'll check the
+     * time and make sure everything is working out as it should be.
+     * <p>
+     * Any events which have been opened are added to the queue in
+     * a single batch, after every open() has run.
+     * </p>
+     * <p>
+     * Every event is sorted into a phase before any callbacks are
+     * run, so an event that's opened during this tick won't also have
+     * its during() or close() run until the next one.
+     * </p>
+     * <p>
+     * Callbacks are run one {@link Priority} at a time, from the top
+     * down - every critical open, during() and close runs before any high
+     * priority callback, and so on. Within a priority, opens and closes
+     * go earliest deadline first (ties go to whichever was scheduled
+     * first), and during()s go in the order their events were opened.
+     * The order only depends on the events themselves, so it's the same
+     * every run.
+     * </p>
+     * <p>
+     * 'Open' will always run once before close function,
+     * even if the duration is incredibly small (1 or 0)
+     * </p>
+     * <p>
+     * Only events which have actually expired are pulled out of the
+     * queue, and only events which override during() are walked every
+     * tick. Everything else just sits there, costing nothing.
+     * </p>
+     * <p>
+     * The phase buffers are reused from tick to tick, and the queue is
+     * never rebuilt, so once things have warmed up a tick doesn't
+     * allocate anything on its own. Anything scheduled by a callback
+     * is deferred until the tick is done - see {@link Events#opening}.
+     * Calling tick() from inside a callback doesn't do anything.
+     * </p>
+     */
+    public void tick() {
+        tick(Long.MAX_VALUE);
+    }
+
+    /**
+     * Tick the scheduler, but stop running callbacks once a time budget
+     * is used up.
+     * <p>
+     * After something like a pause, a whole pile of events can expire at
+     * once, and a normal tick runs every last one of their callbacks
+     * before returning - which is a great way to blow a loop's deadline.
+     * This checks the time before every callback, and once the budget's
+     * gone, whatever's left is carried over to the next tick:
+     * <ul>
+     *     <li>
+     *         Expired events that didn't get closed are closed first
+     *         thing next tick, in deadline order, ahead of anything that
+     *         expires in the meantime.
+     *     </li>
+     *     <li>
+     *         Events that didn't get opened are opened next tick, sorted
+     *         in with anything scheduled in the meantime.
+     *     </li>
+     *     <li>
+     *         during()s that didn't get run are just skipped. They'll run
+     *         again next tick anyway.
+     *     </li>
+     * </ul>
+     * </p>
+     * <p>
+     * At least one callback always runs, so a tiny budget still makes
+     * progress. The budget is checked between callbacks, not during
+     * them, so one slow callback can still go over it. It's measured
+     * with System.nanoTime(), whatever the scheduler's clock is.
+     * </p>
+     *
+     * @param maxNanos how long callbacks are allowed to run for, in
+     *                 nanoseconds, or {@code Long.MAX_VALUE} for no limit
+     * @return how many opens and closes were left over for the next tick
+     */
+    public int tick(long maxNanos) {
+        if (ticking) {
+            return backlog.size;
+        }
+        if (group != null && group.settledAt != ChannelGroup.epoch) {
+            group.settle();
+        }
+        ticking = true;
+        Watchdog.Heartbeat beat = heartbeat;
+        if (beat != null && beat.events == this) {
+            beat.begin();
+        }
+        long started = System.nanoTime();
+        boolean budgeted = maxNanos != Long.MAX_VALUE;
+        int left = 0;
+        try {
+            drainSubmissions();
+            long now = clock.nanoTime();
+            int callbacks = 0;
+            TraceRecorder trace = this.trace;
+            if (trace != null) {
+                trace.record(TraceRecorder.TICK_START, 0, traceChannel, now, 0, 0, 0, 0);
+            }
+            // Whatever the last tick didn't get around to closing expired
+            // before anything still in the queue, so it goes first.
+            for (int i = 0; i < backlog.size; i++) {
+                backlog.events[i].backlogged = false;
+            }
+            toBeClosed.addAll(backlog, 0, backlog.size);
+            backlog.clear();
+            backlogCount = 0;
+            queue.advance(now);
+            ScheduledEvent expired;
+            while ((expired = queue.poll()) != null) {
+                if (expired.state == ScheduledEvent.CANCELLED) {
+                    continue;
+                }
+                if (expired.state == ScheduledEvent.WAITING) {
+                    // The delay's up - open it this tick.
+                    expired.state = ScheduledEvent.PENDING;
+                    expired.deadline += expired.duration;
+                    opening.add(expired);
+                } else {
+                    unlinkActive(expired);
+                    toBeClosed.add(expired);
+                }
+            }
+            int priorities = 0;
+            for (ScheduledEvent event = activeHead; event != null; event = event.activeNext) {
+                toBeDuring.add(event);
+                priorities |= 1 << event.priority;
+            }
+            if ((priorities & (priorities - 1)) != 0) {
+                // More than one priority needs during(). They go top down,
+                // and in the order they were opened in within a priority.
+                toBeDuring.clear();
+                for (int priority = 0; priorities != 0; priority++, priorities >>>= 1) {
+                    if ((priorities & 1) == 0) {
+                        continue;
+                    }
+                    for (ScheduledEvent event = activeHead; event != null; event = event.activeNext) {
+                        if (event.priority == priority) {
+                            toBeDuring.add(event);
+                        }
+                    }
+                }
+            }
+            EventBuffer swap = toBeOpened;
+            toBeOpened = opening;
+            opening = swap;
+            toBeOpened.sort();
+            toBeClosed.sort();
+            int opened = 0;
+            int during = 0;
+            int closed = 0;
+            boolean outOfTime = false;
+            // One priority at a time, top down - every phase of one
+            // priority runs before anything in the next one is touched.
+            while (!outOfTime) {
+                int priority = Integer.MAX_VALUE;
+                if (opened < toBeOpened.size) {
+                    priority = toBeOpened.events[opened].priority;
+                }
+                if (during < toBeDuring.size) {
+                    priority = Math.min(priority, toBeDuring.events[during].priority);
+                }
+                if (closed < toBeClosed.size) {
+                    priority = Math.min(priority, toBeClosed.events[closed].priority);
+                }
+                if (priority == Integer.MAX_VALUE) {
+                    break;
+                }
+                for (; opened < toBeOpened.size; opened++) {
+                    ScheduledEvent event = toBeOpened.events[opened];
+                    if (event.priority != priority) {
+                        break;
+                    }
+                    if (event.state == ScheduledEvent.WAITING) {
+                        toBeQueued.add(event);
+                        continue;
+                    }
+                    if (event.state != ScheduledEvent.PENDING) {
+                        continue;
+                    }
+                    if (budgeted && callbacks > 0 && System.nanoTime() - started >= maxNanos) {
+                        outOfTime = true;
+                        break;
+                    }
+                    event.state = ScheduledEvent.OPEN;
+                    openCount++;
+                    if (event.coalesceKey != null) {
+                        release(event);
+                    }
+                    if (event.callback instanceof Timed) {
+                        ((Timed) event.callback).ran = true;
+                    }
+                    if (trace != null) {
+                        trace.record(TraceRecorder.CALLBACK, TraceRecorder.OPEN, traceChannel,
+                                now, event.sequence, event.deadline, 0, 0);
+                    }
+                    if (event.offload != null) {
+                        event.offload.dispatch(Offload.OPEN);
+                    } else if (beat != null) {
+                        beat.enter(event, TraceRecorder.OPEN);
+                        event.callback.onOpen();
+                        beat.leave();
+                    } else {
+                        event.callback.onOpen();
+                    }
+                    callbacks++;
+                    toBeQueued.add(event);
+                    if (event.hasDuring) {
+                        linkActive(event);
+                    }
+                }
+                if (outOfTime) {
+                    break;
+                }
+                for (; during < toBeDuring.size; during++) {
+                    ScheduledEvent event = toBeDuring.events[during];
+                    if (event.priority != priority) {
+                        break;
+                    }
+                    if (event.state != ScheduledEvent.OPEN) {
+                        continue;
+                    }
+                    if (budgeted && callbacks > 0 && System.nanoTime() - started >= maxNanos) {
+                        outOfTime = true;
+                        break;
+                    }
+                    if (event.offload != null && event.inFlight) {
+                        // If the last callback's still going, this during()
+                        // is just skipped rather than piled up behind it.
+                        continue;
+                    }
+                    if (trace != null) {
+                        trace.record(TraceRecorder.CALLBACK, TraceRecorder.DURING, traceChannel,
+                                now, event.sequence, event.deadline, 0, 0);
+                    }
+                    if (event.offload != null) {
+                        event.offload.dispatch(Offload.DURING);
+                    } else if (beat != null) {
+                        beat.enter(event, TraceRecorder.DURING);
+                        event.callback.onDuring();
+                        beat.leave();
+                    } else {
+                        event.callback.onDuring();
+                    }
+                    callbacks++;
+                }
+                if (outOfTime) {
+                    break;
+                }
+                for (; closed < toBeClosed.size; closed++) {
+                    ScheduledEvent event = toBeClosed.events[closed];
+                    if (event.priority != priority) {
+                        break;
+                    }
+                    if (event.state != ScheduledEvent.OPEN) {
+                        continue;
+                    }
+                    if (event.deadline >= now) {
+                        // Rescheduled after it expired, but before it closed.
+                        queue.add(event);
+                        if (event.hasDuring) {
+                            linkActive(event);
+                        }
+                        continue;
+                    }
+                    if (budgeted && callbacks > 0 && System.nanoTime() - started >= maxNanos) {
+                        outOfTime = true;
+                        break;
+                    }
+                    event.state = ScheduledEvent.CLOSED;
+                    openCount--;
+                    metrics.recordLateness(now - event.deadline);
+                    callbacks++;
+                    if (trace != null) {
+                        trace.record(TraceRecorder.CALLBACK, TraceRecorder.CLOSE, traceChannel,
+                                now, event.sequence, event.deadline, 0, 0);
+                    }
+                    if (event.offload != null) {
+                        // The event stays live until its close() finishes.
+                        closingCount++;
+                        if (event.inFlight) {
+                            event.closeDeferred = true;
+                        } else {
+                            event.offload.dispatch(Offload.CLOSE);
+                        }
+                    } else if (event.period > 0) {
+                        close(beat, event);
+                        if (event.state == ScheduledEvent.CLOSED) {
+                            rearm(event, now);
+                        }
+                    } else {
+                        unlinkLive(event);
+                        close(beat, event);
+                    }
+                }
+            }
+            if (opened < toBeOpened.size) {
+                // Out of time - the rest go back in with anything the
+                // callbacks scheduled, and get sorted in next tick.
+                for (; opened < toBeOpened.size; opened++) {
+                    ScheduledEvent event = toBeOpened.events[opened];
+                    if (event.state == ScheduledEvent.PENDING) {
+                        left++;
+                        opening.add(event);
+                    } else if (event.state == ScheduledEvent.WAITING) {
+                        opening.add(event);
+                    }
+                }
+            }
+            queue.addAll(toBeQueued.events, 0, toBeQueued.size);
+            for (; closed < toBeClosed.size; closed++) {
+                ScheduledEvent event = toBeClosed.events[closed];
+                if (event.state == ScheduledEvent.OPEN) {
+                    event.backlogged = true;
+                    backlog.add(event);
+                    backlogCount++;
+                    left++;
+                }
+            }
+            if (trace != null) {
+                trace.record(TraceRecorder.TICK_END, 0, traceChannel,
+                        clock.nanoTime(), 0, callbacks, left, 0);
+            }
+            metrics.recordTick(
+                    System.nanoTime() - started,
+                    callbacks,
+                    liveCount - openCount,
+                    openCount,
+                    activeCount,
+                    left
+            );
+        } finally {
+            toBeOpened.clear();
+            toBeQueued.clear();
+            toBeDuring.clear();
+            toBeClosed.clear();
+            ticking = false;
+            if (beat != null && beat.events == this) {
+                beat.end();
+            }
+            published = liveCount;
+            if (waiting > 0) {
+                synchronized (room) {
+                    room.notifyAll();
+                }
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Run an event's close() inline, noting it on the heartbeat if the
+     * scheduler's being watched.
+     *
+     * @param beat  the heartbeat, or null
+     * @param event the event to close
+     */
+    private static void close(Watchdog.Heartbeat beat, ScheduledEvent event) {
+        if (beat == null) {
+            event.callback.onClose();
+            return;
+        }
+        beat.enter(event, TraceRecorder.CLOSE);
+        event.callback.onClose();
+        beat.leave();
+    }
+
+    /**
+     * Drop every live event, without running any of their close()s.
+     * <p>
+     * The scheduler itself sticks around and can be used again straight
+     * away. Anything another thread has submitted but the scheduler
+     * hasn't picked up yet isn't affected.
+     * </p>
+     */
+    public void clear() {
+        while (liveHead != null) {
+            cancel(liveHead);
+        }
+    }
+
+    /**
+     * Get this scheduler's metrics.
+     * <p>
+     * These are updated at the end of every tick, and can be read from
+     * any thread.
+     * </p>
+     *
+     * @return the scheduler's metrics
+     */
+    public EventMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * How many events are scheduled and haven't been closed yet.
+     *
+     * @return the number of live events
+     */
+    public int size() {
+        return liveCount;
+    }
+
+    /**
+     * Get every live Timed, keyed by its deadline, the way the old public
+     * {@code events} map used to have them.
+     * <p>
+     * That map was the scheduler itself, back when it was a HashMap. It
+     * isn't anymore, so this hands back a read-only copy, built from
+     * scratch every time it's called. Deadlines are in milliseconds on
+     * the scheduler's clock, and events sharing a deadline are nudged
+     * forwards a millisecond at a time, just like they used to be. Events
+     * scheduled with a plain {@link TimedLifecycle} instead of a Timed
+     * aren't in it.
+     * </p>
+     * <p>
+     * Use {@link Events#size()} to count events, and
+     * {@link Events#pending()}, {@link Events#open()} and
+     * {@link Events#closing()} to look through them, instead. This is
+     * going away in the next release.
+     * </p>
+     *
+     * @return a read-only copy of every live Timed, by deadline
+     */
+    @Deprecated
+    public Map<Long, Timed> getEvents() {
+        HashMap<Long, Timed> copy = new HashMap<>();
+        for (ScheduledEvent event = liveHead; event != null; event = event.liveNext) {
+            Timed timed = event.getTimed();
+            if (timed == null) {
+                continue;
+            }
+            long key = TimeUnit.NANOSECONDS.toMillis(event.deadline);
+            while (copy.containsKey(key)) {
+                key++;
+            }
+            copy.put(key, timed);
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Get a view of the events which haven't been opened yet.
+     *
+     * @return the scheduler's pending view
+     * @see EventView
+     */
+    public EventView pending() {
+        return views[EventView.PENDING];
+    }
+
+    /**
+     * Get a view of the events which are open, and haven't expired.
+     *
+     * @return the scheduler's open view
+     * @see EventView
+     */
+    public EventView open() {
+        return views[EventView.OPEN];
+    }
+
+    /**
+     * Get a view of the events which have expired, but haven't finished
+     * closing yet.
+     *
+     * @return the scheduler's closing view
+     * @see EventView
+     */
+    public EventView closing() {
+        return views[EventView.CLOSING];
+    }
+
+    /**
+     * How many live events are in a given view, worked out from the
+     * counters instead of by walking anything.
+     *
+     * @param kind which view to count
+     * @return how many events are in that view
+     */
+    int count(int kind) {
+        switch (kind) {
+            case EventView.PENDING:
+                return liveCount - openCount - closingCount;
+            case EventView.OPEN:
+                return openCount - backlogCount;
+            default:
+                return closingCount + backlogCount;
+        }
+    }
+
+    /**
+     * How long until the next tick would actually do anything.
+     * <p>
+     * This is what an {@link EventLoop} uses to work out how long it can
+     * sleep for. Anything that's been inserted or submitted but not picked
+     * up yet counts as due right now. Depending on the queue, this might
+     * be a little early, but it's never late.
+     * </p>
+     * <p>
+     * Events which need during() aren't counted here - they want a tick
+     * every single loop, no matter what. Check
+     * {@link Events#hasActive()} for those.
+     * </p>
+     *
+     * @return nanoseconds until the next event is due, 0 if something is
+     * due already, or {@code Long.MAX_VALUE} if nothing is scheduled
+     */
+    public long nanosUntilNext() {
+        if (opening.size > 0 || backlog.size > 0 || !submissions.isEmpty()) {
+            return 0;
+        }
+        long deadline = queue.nextDeadline();
+        if (deadline == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        if (deadline == Long.MIN_VALUE) {
+            return 0;
+        }
+        long remaining = deadline - clock.nanoTime() + 1;
+        return remaining < 0 ? 0 : remaining;
+    }
+
+    /**
+     * Are there any open events which need during() run?
+     *
+     * @return true if ticking would run at least one during()
+     */
+    public boolean hasActive() {
+        return activeCount > 0;
+    }
+
+    /**
+     * Get the oldest live event.
+     * <p>
+     * Every live event can be reached from here by following
+     * {@link ScheduledEvent#liveNext}.
+     * </p>
+     *
+     * @return the oldest live event, or null if there aren't any
+     */
+    ScheduledEvent firstLive() {
+        return liveHead;
+    }
+
+    /**
+     * Another overloaded method for the default scheduler
+     *
+     * @param duration  how long the event should last
+     * @param timed     the actions of the event
+     * @param repeating should the event repeat or not
+     * @return the scheduled event
+     */
+    public ScheduledEvent schedule(long duration, TimedLifecycle timed, boolean repeating) {
+        return schedule(duration, 0, timed, repeating);
+    }
+
+    /**
+     * Overloaded method for the default scheduler.
+     *
+     * @param duration how long the event should last
+     * @param timed    the actual event
+     * @return the scheduled event
+     */
+    public ScheduledEvent schedule(long duration, TimedLifecycle timed) {
+        return schedule(duration, 0, timed, false);
+    }
+
+    /**
+     * Schedule an event with a duration in any unit you'd like.
+     * <p>
+     * This is the one to use for sub-millisecond events - something
+     * like {@code schedule(250, TimeUnit.MICROSECONDS, timed)}.
+     * </p>
+     *
+     * @param duration how long the event should last
+     * @param unit     the unit the duration is in
+     * @param timed    the actual event
+     * @return the scheduled event
+     */
+    public ScheduledEvent schedule(long duration, TimeUnit unit, TimedLifecycle timed) {
+        return schedule(duration, unit, timed, Priority.NORMAL);
+    }
+
+    /**
+     * Schedule an event with a given priority.
+     * <p>
+     * Whenever this event's callbacks are due in the same tick as
+     * anything less important, this event's go first. The priority's set
+     * before the scheduler ticks, so that even applies to open().
+     * </p>
+     *
+     * @param duration how long the event should last
+     * @param unit     the unit the duration is in
+     * @param timed    the actual event
+     * @param priority how important the event is
+     * @return the scheduled event
+     * @see Priority
+     */
+    public ScheduledEvent schedule(long duration, TimeUnit unit, TimedLifecycle timed, Priority priority) {
+        ScheduledEvent event = enqueue(
+                unit.toNanos(duration),
+                0,
+                timed,
+                0,
+                RepeatMode.FIXED_DELAY,
+                OverrunPolicy.CATCH_UP,
+                priority.ordinal()
+        );
+        tickAfterScheduling();
+        return event;
+    }
+
+    /**
+     * Wrapper for the default put function, schedules an event.
+     * <p>
+     * If the delay is anything other than zero, the event waits in the
+     * queue until the delay has run out, and only then is it opened,
+     * lasting for however long the duration is.
+     * </p>
+     * <p>
+     * If the delay IS zero, however, calculate the expiration
+     * date of the event and schedule an event for that long.
+     * </p>
+     * <p>
+     * Don't worry if this doesn't make any sense - this
+     * method will handle any confusion you have and just so perfectly
+     * schedule everything nicely for you.
+     * </p>
+     * <p>
+     * In general, when scheduling an event, you're going to use
+     * the open and close methods contained within Timed.
+     * *** MAKE SURE NOT TO FORGET TO STOP ANYTHING ***
+     * ***   YOU NEED TO STOP IN THE CLOSE METHOD!  ***
+     * </p>
+     * <p>
+     * Repeating events used to be a bit of a mess - every period spawned
+     * a second event just to schedule the next one, along with a fresh
+     * copy of the Timed with 'ran' set back to false. Now a repeating
+     * event is just a {@link RepeatMode#FIXED_DELAY fixed-delay} periodic
+     * event with the duration as its period. It's stored once and rearmed
+     * in place after every close. If you want a steady rate instead, use
+     * {@link Events#schedulePeriodic(long, TimeUnit, TimedLifecycle, RepeatMode, OverrunPolicy)}.
+     * </p>
+     * <p>
+     * If this is called from inside one of a scheduled event's
+     * callbacks, the new event is deferred until the current tick is
+     * done, and it'll be opened on the next one.
+     * </p>
+     *
+     * @param duration  how long the event should last, in milliseconds
+     * @param delay     how long until the event is propagated, in milliseconds
+     * @param timed     the actual event which should be run
+     * @param repeating whether or not the event should repeat
+     * @return the scheduled event, which can be cancelled, rescheduled or
+     * extended later on
+     */
+    public ScheduledEvent schedule(long duration, int delay, TimedLifecycle timed, boolean repeating) {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(duration);
+        ScheduledEvent event = enqueue(
+                nanos,
+                TimeUnit.MILLISECONDS.toNanos(delay),
+                timed,
+                repeating ? nanos : 0,
+                RepeatMode.FIXED_DELAY,
+                OverrunPolicy.CATCH_UP,
+                ScheduledEvent.NORMAL_PRIORITY
+        );
+        tickAfterScheduling();
+        return event;
+    }
+
+    /**
+     * Tick the scheduler right after something's been scheduled, the way
+     * schedule() always has.
+     * <p>
+     * Nothing's ticked if the scheduler's already in the middle of a
+     * tick, or if it's a channel in a group that's been
+     * {@link StringEvents#pause(String) paused}. Scheduling on a paused
+     * channel is fine, but nothing's supposed to run until it's resumed.
+     * </p>
+     */
+    private void tickAfterScheduling() {
+        if (!ticking && (group == null || !group.isPaused())) {
+            tick();
+        }
+    }
+
+    /**
+     * Insert an event without ticking the scheduler.
+     * <p>
+     * schedule() ticks the scheduler every single time it's called, which
+     * is great if you want the event opened right away, but terrible if
+     * you're loading up a whole autonomous routine - every event ends up
+     * costing a full tick, and callbacks start firing halfway through
+     * setting everything up. This just adds the event, and that's it.
+     * Nothing runs until the next time you call {@link Events#tick()}.
+     * </p>
+     *
+     * @param duration how long the event should last
+     * @param unit     the unit the duration is in
+     * @param timed    the actual event
+     * @return the inserted event
+     */
+    public ScheduledEvent insert(long duration, TimeUnit unit, TimedLifecycle timed) {
+        return insert(duration, 0, unit, timed);
+    }
+
+    /**
+     * Insert an event with a delay, without ticking the scheduler.
+     *
+     * @param duration how long the event should last
+     * @param delay    how long until the event is opened
+     * @param unit     the unit the duration and delay are in
+     * @param timed    the actual event
+     * @return the inserted event
+     * @see Events#insert(long, TimeUnit, TimedLifecycle)
+     */
+    public ScheduledEvent insert(long duration, long delay, TimeUnit unit, TimedLifecycle timed) {
+        return insert(duration, delay, unit, timed, Priority.NORMAL);
+    }
+
+    /**
+     * Insert an event with a delay and a priority, without ticking the
+     * scheduler.
+     * <p>
+     * Setting the priority here, instead of with
+     * {@link ScheduledEvent#setPriority(Priority)} afterwards, means the
+     * event never exists at the wrong priority at all - not even in a
+     * trace.
+     * </p>
+     *
+     * @param duration how long the event should last
+     * @param delay    how long until the event is opened
+     * @param unit     the unit the duration and delay are in
+     * @param timed    the actual event
+     * @param priority how important the event is
+     * @return the inserted event
+     * @see Events#insert(long, TimeUnit, TimedLifecycle)
+     * @see Priority
+     */
+    public ScheduledEvent insert(long duration,
+                                 long delay,
+                                 TimeUnit unit,
+                                 TimedLifecycle timed,
+                                 Priority priority) {
+        return enqueue(
+                unit.toNanos(duration),
+                unit.toNanos(delay),
+                timed,
+                0,
+                RepeatMode.FIXED_DELAY,
+                OverrunPolicy.CATCH_UP,
+                priority.ordinal()
+        );
+    }
+
+    /**
+     * Schedule an event whose callbacks run on the default offload
+     * executor instead of on the ticking thread.
+     *
+     * @param duration how long the event should last
+     * @param unit     the unit the duration is in
+     * @param timed    the actual event
+     * @return the scheduled event
+     * @see Events#offload(long, TimeUnit, TimedLifecycle, Executor)
+     */
+    public ScheduledEvent offload(long duration, TimeUnit unit, TimedLifecycle timed) {
+        return offload(duration, unit, timed, defaultOffloadExecutor());
+    }
+
+    /**
+     * Schedule an event whose callbacks run on an executor instead of on
+     * the ticking thread.
+     * <p>
+     * The scheduler still keeps track of all of the timing - when the
+     * event opens, when it expires, and when it repeats. Only the
+     * callbacks themselves are handed off. A slow close() doesn't hold
+     * up anything else in the scheduler anymore, and it's still
+     * guaranteed that the event's open(), during()s and close() run one
+     * after the other, never at the same time and never out of order.
+     * </p>
+     * <p>
+     * A couple things to keep in mind:
+     * <ul>
+     *     <li>
+     *         Everything is a tick behind. A callback's finishing is only
+     *         noticed at the start of the next tick, so if the event
+     *         expires while open() is still running, close() is sent out
+     *         on the first tick after open() is done.
+     *     </li>
+     *     <li>
+     *         A during() is skipped if the event's previous callback is
+     *         still running. They're never queued up.
+     *     </li>
+     *     <li>
+     *         Callbacks run on another thread. Don't touch anything
+     *         thread-unsafe from them, including this scheduler - use
+     *         {@link Events#submit(long, TimedLifecycle)} instead.
+     *     </li>
+     * </ul>
+     * </p>
+     * <p>
+     * Anything latency-critical should stay inline. This only makes
+     * sense for events whose callbacks take a while.
+     * </p>
+     *
+     * @param duration how long the event should last
+     * @param unit     the unit the duration is in
+     * @param timed    the actual event
+     * @param executor where the event's callbacks are run
+     * @return the scheduled event
+     */
+    public ScheduledEvent offload(long duration, TimeUnit unit, TimedLifecycle timed, Executor executor) {
+        ScheduledEvent event = enqueue(
+                unit.toNanos(duration),
+                0,
+                timed,
+                0,
+                RepeatMode.FIXED_DELAY,
+                OverrunPolicy.CATCH_UP,
+                ScheduledEvent.NORMAL_PRIORITY
+        );
+        event.offload = new Offload(this, event, executor);
+        tickAfterScheduling();
+        return event;
+    }
+
+    /**
+     * Schedule an event under a key, coalescing it with whatever's
+     * already waiting under the same key.
+     * <p>
+     * It's common to ask for the same thing over and over within a few
+     * milliseconds - several sensors all triggering the same retry, for
+     * example. Scheduling every one of those means every one of them
+     * runs. This sorts it out right here instead, so duplicates never
+     * make it into the queue at all. What happens to a duplicate depends
+     * on the policy - see {@link CoalescePolicy}.
+     * </p>
+     * <p>
+     * A key is only held by an event until the event opens. Keys are
+     * compared with equals(), so Strings, enums and boxed numbers all
+     * work fine.
+     * </p>
+     * <p>
+     * Like insert(), this never ticks the scheduler. If it did, anything
+     * without a delay would open straight away, and there'd never be
+     * anything to coalesce with.
+     * </p>
+     *
+     * @param key      what the event is coalesced by
+     * @param policy   what to do with a duplicate
+     * @param delay    how long until the event opens. For
+     *                 {@link CoalescePolicy#DEBOUNCE}, this is how long
+     *                 things have to be quiet for.
+     * @param duration how long the event lasts once it's open
+     * @param unit     the unit the delay and duration are in
+     * @param timed    the actual event
+     * @return whichever event is now waiting under the key - the new one,
+     * or the one that was already there
+     */
+    public ScheduledEvent coalesce(Object key,
+                                   CoalescePolicy policy,
+                                   long delay,
+                                   long duration,
+                                   TimeUnit unit,
+                                   TimedLifecycle timed) {
+        ScheduledEvent existing = coalesced.get(key);
+        if (existing != null) {
+            if (policy == CoalescePolicy.KEEP_EARLIEST) {
+                return existing;
+            }
+            if (policy == CoalescePolicy.DEBOUNCE) {
+                if (existing.state == ScheduledEvent.WAITING) {
+                    move(existing, clock.nanoTime() + unit.toNanos(delay));
+                }
+                return existing;
+            }
+            cancel(existing);
+        }
+        ScheduledEvent event = enqueue(
+                unit.toNanos(duration),
+                unit.toNanos(delay),
+                timed,
+                0,
+                RepeatMode.FIXED_DELAY,
+                OverrunPolicy.CATCH_UP,
+                ScheduledEvent.NORMAL_PRIORITY
+        );
+        if (event.state != ScheduledEvent.CANCELLED) {
+            // Dropped by a full scheduler - there's nothing to coalesce into.
+            event.coalesceKey = key;
+            coalesced.put(key, event);
+        }
+        return event;
+    }
+
+    /**
+     * Insert a bunch of events with the same duration, all at once.
+     * <p>
+     * Like {@link Events#insert(long, TimeUnit, TimedLifecycle)}, this doesn't tick
+     * the scheduler. Each event costs a single append here, and they're
+     * all added to the queue together on the next tick.
+     * </p>
+     *
+     * @param duration how long every event should last
+     * @param unit     the unit the duration is in
+     * @param timeds   the events to insert
+     * @return the inserted events, in the same order
+     */
+    public ScheduledEvent[] scheduleAll(long duration, TimeUnit unit, TimedLifecycle... timeds) {
+        ScheduledEvent[] scheduled = new ScheduledEvent[timeds.length];
+        for (int i = 0; i < timeds.length; i++) {
+            scheduled[i] = insert(duration, 0, unit, timeds[i]);
+        }
+        return scheduled;
+    }
+
+    /**
+     * Insert a whole scripted sequence of events, all at once.
+     * <p>
+     * Event i starts after delays[i] and then lasts for durations[i]. All
+     * three arrays have to be the same length. Just like the other bulk
+     * method, nothing is ticked, and no callbacks run until the next tick.
+     * </p>
+     *
+     * @param delays    how long until each event is opened
+     * @param durations how long each event should last
+     * @param unit      the unit the delays and durations are in
+     * @param timeds    the events to insert
+     * @return the inserted events, in the same order
+     */
+    public ScheduledEvent[] scheduleAll(long[] delays, long[] durations, TimeUnit unit, TimedLifecycle[] timeds) {
+        if (delays.length != timeds.length || durations.length != timeds.length) {
+            throw new IllegalArgumentException("Every event needs exactly one delay and one duration");
+        }
+        ScheduledEvent[] scheduled = new ScheduledEvent[timeds.length];
+        for (int i = 0; i < timeds.length; i++) {
+            scheduled[i] = insert(durations[i], delays[i], unit, timeds[i]);
+        }
+        return scheduled;
+    }
+
+    /**
+     * Schedule an event which repeats forever, once every period.
+     * <p>
+     * Every period, the event is opened, has its during() run until the
+     * period's deadline, and is then closed. After it closes, it's rearmed
+     * in place for the next period - nothing new is allocated, and
+     * nothing extra gets scheduled.
+     * </p>
+     * <p>
+     * Unlike schedule(), this doesn't tick the scheduler. The first period
+     * starts on the next tick.
+     * </p>
+     *
+     * @param period  how long a single period is
+     * @param unit    the unit the period is in
+     * @param timed   the event which should be run every period
+     * @param mode    how the next period's deadline is worked out
+     * @param overrun what a fixed-rate event does when it falls behind
+     * @return the periodic event
+     */
+    public ScheduledEvent schedulePeriodic(long period,
+                                           TimeUnit unit,
+                                           TimedLifecycle timed,
+                                           RepeatMode mode,
+                                           OverrunPolicy overrun) {
+        return schedulePeriodic(0, period, unit, timed, mode, overrun);
+    }
+
+    /**
+     * Schedule an event which repeats forever, starting after a delay.
+     *
+     * @param initialDelay how long to wait before the first period starts
+     * @param period       how long a single period is
+     * @param unit         the unit the delay and period are in
+     * @param timed        the event which should be run every period
+     * @param mode         how the next period's deadline is worked out
+     * @param overrun      what a fixed-rate event does when it falls behind
+     * @return the periodic event
+     * @see Events#schedulePeriodic(long, TimeUnit, TimedLifecycle, RepeatMode, OverrunPolicy)
+     */
+    public ScheduledEvent schedulePeriodic(long initialDelay,
+                                           long period,
+                                           TimeUnit unit,
+                                           TimedLifecycle timed,
+                                           RepeatMode mode,
+                                           OverrunPolicy overrun) {
+        return schedulePeriodic(initialDelay, period, unit, timed, mode, overrun, Priority.NORMAL);
+    }
+
+    /**
+     * Schedule an event which repeats forever, starting after a delay,
+     * with a priority.
+     *
+     * @param initialDelay how long to wait before the first period starts
+     * @param period       how long a single period is
+     * @param unit         the unit the delay and period are in
+     * @param timed        the event which should be run every period
+     * @param mode         how the next period's deadline is worked out
+     * @param overrun      what a fixed-rate event does when it falls behind
+     * @param priority     how important the event is
+     * @return the periodic event
+     * @see Events#schedulePeriodic(long, TimeUnit, TimedLifecycle, RepeatMode, OverrunPolicy)
+     * @see Priority
+     */
+    public ScheduledEvent schedulePeriodic(long initialDelay,
+                                           long period,
+                                           TimeUnit unit,
+                                           TimedLifecycle timed,
+                                           RepeatMode mode,
+                                           OverrunPolicy overrun,
+                                           Priority priority) {
+        long nanos = unit.toNanos(period);
+        if (nanos <= 0) {
+            throw new IllegalArgumentException("Period must be positive, got " + period);
+        }
+        return enqueue(nanos, unit.toNanos(initialDelay), timed, nanos, mode, overrun, priority.ordinal());
+    }
+
+    /**
+     * Schedule an event from any thread.
+     * <p>
+     * Unlike schedule(), this is completely thread-safe, and it never
+     * ticks the scheduler. The event's deadline is worked out right now,
+     * but it won't actually be picked up until the start of the next
+     * tick. No locks are involved, so this is fine to call from sensor
+     * threads, network threads, or whatever else.
+     * </p>
+     *
+     * @param duration how long the event should last, in milliseconds
+     * @param timed    the actual event
+     * @return the submitted event, which can be passed to
+     * {@link Events#submitCancel(ScheduledEvent)} later on
+     */
+    public ScheduledEvent submit(long duration, TimedLifecycle timed) {
+        return submit(duration, TimeUnit.MILLISECONDS, timed);
+    }
+
+    /**
+     * Schedule an event from any thread, with a duration in any unit.
+     *
+     * @param duration how long the event should last
+     * @param unit     the unit the duration is in
+     * @param timed    the actual event
+     * @return the submitted event
+     * @see Events#submit(long, TimedLifecycle)
+     */
+    public ScheduledEvent submit(long duration, TimeUnit unit, TimedLifecycle timed) {
+        long nanos = unit.toNanos(duration);
+        // No sequence number until it's picked up - until then, the trace
+        // doesn't know it exists.
+        ScheduledEvent event = new ScheduledEvent(this, timed, clock.nanoTime() + nanos, -1);
+        event.duration = nanos;
+        event.hasDuring = hasDuring(timed);
+        if (!reserve()) {
+            event.state = ScheduledEvent.CANCELLED;
+            return event;
+        }
+        submissions.offer(SubmissionQueue.SCHEDULE, event);
+        wakeLoop();
+        return event;
+    }
+
+    /**
+     * Cancel an event from any thread.
+     * <p>
+     * The cancellation is picked up at the start of the next tick. If
+     * the event hasn't closed by then, it's dropped without close() ever
+     * running, the same way clearing a StringEvents channel works.
+     * </p>
+     *
+     * @param event the event to cancel
+     */
+    public void submitCancel(ScheduledEvent event) {
+        submissions.offer(SubmissionQueue.CANCEL, event);
+        wakeLoop();
+    }
+
+    /**
+     * If a loop is driving this scheduler, wake it up so it notices
+     * whatever was just submitted.
+     */
+    private void wakeLoop() {
+        EventLoop driver = loop;
+        if (driver != null) {
+            driver.wakeup();
+        }
+    }
+
+    /**
+     * Pick up everything other threads have submitted since the last tick.
+     */
+    private void drainSubmissions() {
+        SubmissionQueue.Submission submission;
+        while ((submission = submissions.poll()) != null) {
+            ScheduledEvent event = submission.event;
+            if (submission.type == SubmissionQueue.SCHEDULE) {
+                submitted.decrementAndGet();
+                if (event.state == ScheduledEvent.CANCELLED || !admit(event, false)) {
+                    continue;
+                }
+                event.sequence = sequence++;
+                linkLive(event);
+                opening.add(event);
+                if (trace != null) {
+                    long now = clock.nanoTime();
+                    long delay = event.state == ScheduledEvent.WAITING ? event.deadline - now : 0;
+                    trace.schedule(traceChannel, now, event, delay);
+                    if (delay == 0 && event.deadline != now + event.duration) {
+                        // Its deadline was worked out when it was submitted,
+                        // not now. A move puts the replay on the same one.
+                        trace.record(TraceRecorder.MOVE, 0, traceChannel,
+                                now, event.sequence, event.deadline - now, 0, 0);
+                    }
+                }
+            } else if (submission.type == SubmissionQueue.CANCEL) {
+                cancel(event);
+            } else {
+                completed(event);
+            }
+        }
+    }
+
+    /**
+     * Called from an executor's thread when an offloaded callback is done.
+     *
+     * @param event the event whose callback finished
+     */
+    void complete(ScheduledEvent event) {
+        submissions.offer(SubmissionQueue.COMPLETE, event);
+        wakeLoop();
+    }
+
+    /**
+     * Deal with an offloaded callback having finished, on the ticking
+     * thread.
+     * <p>
+     * If the event expired while the callback was running, its close()
+     * goes out now. If the callback that finished WAS close(), the event
+     * is done - it's either rearmed or dropped, same as an inline event
+     * would be straight after close().
+     * </p>
+     *
+     * @param event the event whose callback finished
+     */
+    private void completed(ScheduledEvent event) {
+        event.inFlight = false;
+        if (event.state != ScheduledEvent.CLOSED) {
+            return;
+        }
+        if (event.closeDeferred) {
+            event.closeDeferred = false;
+            event.offload.dispatch(Offload.CLOSE);
+        } else if (event.offload.phase == Offload.CLOSE) {
+            closingCount--;
+            if (event.period > 0) {
+                rearm(event, clock.nanoTime());
+            } else {
+                unlinkLive(event);
+            }
+        }
+    }
+
+    /**
+     * Cancel an event, dropping it from everything it's in.
+     * <p>
+     * The event's close() never runs. Cancelling is cheap - the event is
+     * just marked as cancelled, and the queue is allowed to clean it out
+     * whenever it gets around to it (the heap does it in bulk, once
+     * enough cancelled events have piled up). Timeouts which are almost
+     * always cancelled before they fire don't slow down tick() at all.
+     * </p>
+     * <p>
+     * This has to be called from the thread ticking the scheduler. From
+     * anywhere else, use {@link Events#submitCancel(ScheduledEvent)}.
+     * </p>
+     *
+     * @param event the event to cancel
+     * @return true if the event was cancelled, false if it had already
+     * closed or been cancelled
+     */
+    public boolean cancel(ScheduledEvent event) {
+        if (!drop(event)) {
+            return false;
+        }
+        if (trace != null && event.sequence >= 0) {
+            trace.record(TraceRecorder.CANCEL, 0, traceChannel, clock.nanoTime(), event.sequence, 0, 0, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Do the actual work of cancelling an event.
+     *
+     * @param event the event to cancel
+     * @return true if the event was cancelled
+     */
+    private boolean drop(ScheduledEvent event) {
+        if (event.state == ScheduledEvent.CLOSED && (event.inFlight || event.closeDeferred)) {
+            // Expired, but its offloaded close() hasn't finished yet.
+            // Whatever's running keeps running, but nothing else will.
+            event.state = ScheduledEvent.CANCELLED;
+            event.closeDeferred = false;
+            closingCount--;
+            unlinkLive(event);
+            return true;
+        }
+        if (event.state == ScheduledEvent.CLOSED && event.period > 0 && event.offload == null
+                && (event.livePrev != null || liveHead == event)) {
+            // A periodic event cancelling itself from its own close() -
+            // it just doesn't get rearmed.
+            event.state = ScheduledEvent.CANCELLED;
+            unlinkLive(event);
+            return true;
+        }
+        if (event.state == ScheduledEvent.CLOSED || event.state == ScheduledEvent.CANCELLED) {
+            return false;
+        }
+        if (event.livePrev == null && liveHead != event) {
+            // Not picked up from the submission queue yet - the schedule
+            // request will see it's been cancelled and skip it.
+            event.state = ScheduledEvent.CANCELLED;
+            return true;
+        }
+        int state = event.state;
+        event.state = ScheduledEvent.CANCELLED;
+        if (event.coalesceKey != null) {
+            release(event);
+        }
+        if (state == ScheduledEvent.OPEN) {
+            openCount--;
+        }
+        if (event.backlogged) {
+            event.backlogged = false;
+            backlogCount--;
+        }
+        if (state == ScheduledEvent.OPEN || state == ScheduledEvent.WAITING) {
+            queue.cancel(event);
+            unlinkActive(event);
+        }
+        unlinkLive(event);
+        return true;
+    }
+
+    /**
+     * Move an event's deadline to a given amount of time from now.
+     * <p>
+     * Whatever the event is waiting on is what gets moved. An open event
+     * closes that long from now, and an event that's still waiting out
+     * its delay opens that long from now (and then lasts as long as it
+     * was always going to). An event that hasn't been opened yet is
+     * opened next tick, as usual, and closes that long from now.
+     * </p>
+     * <p>
+     * An event that's expired but hasn't been closed yet (because a
+     * budgeted tick ran out of time, say) can still be rescheduled - it
+     * just goes back into the queue instead of closing.
+     * </p>
+     * <p>
+     * This has to be called from the thread ticking the scheduler.
+     * </p>
+     *
+     * @param event the event to reschedule
+     * @param time  how long from now the event's new deadline is
+     * @param unit  the unit the time is in
+     * @return true if the event was rescheduled, false if it had already
+     * closed or been cancelled
+     */
+    public boolean reschedule(ScheduledEvent event, long time, TimeUnit unit) {
+        return move(event, clock.nanoTime() + unit.toNanos(time));
+    }
+
+    /**
+     * Push an event's deadline back by a given amount of time.
+     * <p>
+     * This is the usual way to keep a watchdog-style timeout from firing -
+     * every time whatever it's watching does something, extend it a bit.
+     * A negative amount brings the deadline forwards instead.
+     * </p>
+     *
+     * @param event the event to extend
+     * @param time  how much longer the event should last
+     * @param unit  the unit the time is in
+     * @return true if the event was extended, false if it had already
+     * closed or been cancelled
+     * @see Events#reschedule(ScheduledEvent, long, TimeUnit)
+     */
+    public boolean extend(ScheduledEvent event, long time, TimeUnit unit) {
+        return move(event, event.deadline + unit.toNanos(time));
+    }
+
+    /**
+     * Change an event's priority.
+     *
+     * @param event    the event to change
+     * @param priority the ordinal of the event's new {@link Priority}
+     */
+    void setPriority(ScheduledEvent event, int priority) {
+        event.priority = priority;
+        if (trace != null && event.sequence >= 0) {
+            trace.record(TraceRecorder.PRIORITY, 0, traceChannel, clock.nanoTime(), event.sequence, priority, 0, 0);
+        }
+    }
+
+    /**
+     * Give an event a new deadline, fixing the queue up if it's in there.
+     *
+     * @param event    the event to move
+     * @param deadline the event's new deadline
+     * @return true if the event was moved
+     */
+    boolean move(ScheduledEvent event, long deadline) {
+        if (event.state == ScheduledEvent.CLOSED || event.state == ScheduledEvent.CANCELLED) {
+            return false;
+        }
+        event.deadline = deadline;
+        if (event.queueIndex >= 0) {
+            queue.update(event);
+        }
+        if (trace != null && event.sequence >= 0) {
+            long now = clock.nanoTime();
+            trace.record(TraceRecorder.MOVE, 0, traceChannel, now, event.sequence, deadline - now, 0, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Let go of an event's coalescing key, once it's opened or cancelled.
+     *
+     * @param event the event holding the key
+     */
+    private void release(ScheduledEvent event) {
+        if (coalesced.get(event.coalesceKey) == event) {
+            coalesced.remove(event.coalesceKey);
+        }
+        event.coalesceKey = null;
+    }
+
+    /**
+     * Get the default offload executor, creating it if it doesn't exist.
+     *
+     * @return the shared offload executor
+     */
+    private static Executor defaultOffloadExecutor() {
+        ExecutorService executor = offloadExecutor;
+        if (executor == null) {
+            synchronized (Events.class) {
+                executor = offloadExecutor;
+                if (executor == null) {
+                    executor = Executors.newCachedThreadPool(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "Events-offload");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    offloadExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Put an event from an {@link EventSnapshot} back into the scheduler,
+     * in the same phase it was saved in.
+     * <p>
+     * Pending and waiting events go into the opening buffer, same as if
+     * they'd just been scheduled. Open events go straight into the queue,
+     * without their open() being run again.
+     * </p>
+     *
+     * @param callback the event's callbacks
+     * @param state    the phase the event was in
+     * @param left     how long the event had until its deadline, which
+     *                 might be negative if it's already passed
+     * @param duration how long the event lasts once it's open
+     * @param period   how long a single period is, or 0
+     * @param mode     how the next period's deadline is worked out
+     * @param overrun  what a fixed-rate event does when it falls behind
+     * @return the restored event
+     */
+    ScheduledEvent restore(TimedLifecycle callback,
+                           int state,
+                           long left,
+                           long duration,
+                           long period,
+                           RepeatMode mode,
+                           OverrunPolicy overrun) {
+        if (group != null && group.settledAt != ChannelGroup.epoch) {
+            group.settle();
+        }
+        ScheduledEvent event = new ScheduledEvent(this, callback, clock.nanoTime() + left, sequence++);
+        event.hasDuring = hasDuring(callback);
+        event.duration = duration;
+        event.period = period;
+        event.repeatMode = mode;
+        event.overrunPolicy = overrun;
+        linkLive(event);
+        if (state == ScheduledEvent.OPEN) {
+            event.state = ScheduledEvent.OPEN;
+            openCount++;
+            if (callback instanceof Timed) {
+                ((Timed) callback).ran = true;
+            }
+            queue.add(event);
+            if (event.hasDuring) {
+                linkActive(event);
+            }
+        } else {
+            event.state = state == ScheduledEvent.WAITING ? ScheduledEvent.WAITING : ScheduledEvent.PENDING;
+            opening.add(event);
+        }
+        return event;
+    }
+
+    /**
+     * Add a new event to the list of events waiting to be opened.
+     * <p>
+     * Events with a delay go into the opening buffer too, but instead of
+     * being opened, the tick just moves them into the queue to wait out
+     * their delay. That way nothing touches the queue in the middle of
+     * a tick.
+     * </p>
+     *
+     * @param duration how long the event should stay open, in nanoseconds
+     * @param delay    how long to wait before opening it, in nanoseconds
+     * @param timed    the event itself
+     * @param period   the event's period, in nanoseconds, or 0 if it
+     *                 doesn't repeat
+     * @param mode     how the next period's deadline is worked out
+     * @param overrun  what a fixed-rate event does when it falls behind
+     * @param priority the ordinal of the event's {@link Priority}
+     * @return the new event
+     */
+    ScheduledEvent enqueue(long duration,
+                           long delay,
+                           TimedLifecycle timed,
+                           long period,
+                           RepeatMode mode,
+                           OverrunPolicy overrun,
+                           int priority) {
+        if (group != null && group.settledAt != ChannelGroup.epoch) {
+            group.settle();
+        }
+        long now = clock.nanoTime();
+        ScheduledEvent event = new ScheduledEvent(this, timed, now + duration, sequence++);
+        event.hasDuring = hasDuring(timed);
+        event.duration = duration;
+        event.period = period;
+        event.repeatMode = mode;
+        event.overrunPolicy = overrun;
+        event.priority = priority;
+        if (delay > 0) {
+            event.state = ScheduledEvent.WAITING;
+            event.deadline = now + delay;
+        }
+        if (!admit(event, true)) {
+            return event;
+        }
+        linkLive(event);
+        opening.add(event);
+        if (trace != null) {
+            trace.schedule(traceChannel, now, event, delay > 0 ? delay : 0);
+        }
+        return event;
+    }
+
+    /**
+     * Set a periodic event up for its next period, right after it closes.
+     *
+     * @param event the event to rearm
+     * @param now   the time the tick started at
+     */
+    private void rearm(ScheduledEvent event, long now) {
+        long next;
+        if (event.repeatMode == RepeatMode.FIXED_RATE) {
+            next = event.deadline + event.period;
+            if (next < now && event.overrunPolicy == OverrunPolicy.SKIP) {
+                next += ((now - next) / event.period + 1) * event.period;
+            }
+        } else {
+            next = now + event.period;
+        }
+        event.deadline = next;
+        event.state = ScheduledEvent.PENDING;
+        if (event.callback instanceof Timed) {
+            ((Timed) event.callback).ran = false;
+        }
+        opening.add(event);
+    }
+
+    /**
+     * Add an event to the end of the list of events needing during().
+     *
+     * @param event the event to add
+     */
+    private void linkActive(ScheduledEvent event) {
+        ScheduledEvent after = activeTail;
+        if (groupTails != null) {
+            // Grouped - it goes right after the last event of its class,
+            // or on the end if it's the first one.
+            ScheduledEvent groupTail = groupTails.put(event.callback.getClass(), event);
+            if (groupTail != null) {
+                after = groupTail;
+            }
+        }
+        event.activePrev = after;
+        if (after == null) {
+            event.activeNext = activeHead;
+            activeHead = event;
+        } else {
+            event.activeNext = after.activeNext;
+            after.activeNext = event;
+        }
+        if (event.activeNext == null) {
+            activeTail = event;
+        } else {
+            event.activeNext.activePrev = event;
+        }
+        activeCount++;
+    }
+
+    /**
+     * Take an event out of the list of events needing during().
+     * <p>
+     * Does nothing if the event isn't in the list.
+     * </p>
+     *
+     * @param event the event to remove
+     */
+    private void unlinkActive(ScheduledEvent event) {
+        if (event.activePrev == null && activeHead != event) {
+            return;
+        }
+        if (groupTails != null) {
+            Class<?> type = event.callback.getClass();
+            if (groupTails.get(type) == event) {
+                ScheduledEvent prev = event.activePrev;
+                if (prev != null && prev.callback.getClass() == type) {
+                    groupTails.put(type, prev);
+                } else {
+                    groupTails.remove(type);
+                }
+            }
+        }
+        if (event.activePrev == null) {
+            activeHead = event.activeNext;
+        } else {
+            event.activePrev.activeNext = event.activeNext;
+        }
+        if (event.activeNext == null) {
+            activeTail = event.activePrev;
+        } else {
+            event.activeNext.activePrev = event.activePrev;
+        }
+        event.activePrev = null;
+        event.activeNext = null;
+        activeCount--;
+    }
+
+    /**
+     * Add an event to the end of the list of live events.
+     *
+     * @param event the event to add
+     */
+    private void linkLive(ScheduledEvent event) {
+        event.livePrev = liveTail;
+        event.liveNext = null;
+        if (liveTail == null) {
+            liveHead = event;
+        } else {
+            liveTail.liveNext = event;
+        }
+        liveTail = event;
+        liveCount++;
+    }
+
+    /**
+     * Take an event out of the list of live events.
+     *
+     * @param event the event to remove
+     */
+    private void unlinkLive(ScheduledEvent event) {
+        if (event.livePrev == null) {
+            liveHead = event.liveNext;
+        } else {
+            event.livePrev.liveNext = event.liveNext;
+        }
+        if (event.liveNext == null) {
+            liveTail = event.livePrev;
+        } else {
+            event.liveNext.livePrev = event.livePrev;
+        }
+        event.livePrev = null;
+        event.liveNext = null;
+        liveCount--;
     }
 }
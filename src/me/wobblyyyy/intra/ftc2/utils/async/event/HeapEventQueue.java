@@ -0,0 +1,306 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 9:12 AM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.util.Arrays;
+
+/**
+ * The default {@link EventQueue} - a binary min-heap ordered by deadline.
+ * <p>
+ * Events with the same deadline come out in the order they were
+ * scheduled in, so this is fully deterministic. Each event remembers its
+ * index in the heap array, which is what makes removal O(log n) instead
+ * of a linear search.
+ * </p>
+ * <p>
+ * Cancelling is even cheaper than removing - cancelled events are just
+ * left where they are and skipped over once they reach the top. Once
+ * more than half of the heap is cancelled events, they're all swept out
+ * in one go and the heap is rebuilt, which works out to O(1) per cancel.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public class HeapEventQueue implements EventQueue {
+    /**
+     * The heap itself. Only the first {@code size} elements are used.
+     */
+    private ScheduledEvent[] heap = new ScheduledEvent[16];
+
+    /**
+     * How many events are in the heap.
+     */
+    private int size = 0;
+
+    /**
+     * How many of the events in the heap have been cancelled, but not
+     * swept out yet.
+     */
+    private int cancelled = 0;
+
+    /**
+     * The time the queue was last advanced to.
+     */
+    private long now = Long.MIN_VALUE;
+
+    @Override
+    public void add(ScheduledEvent event) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = event;
+        event.queueIndex = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Add a whole batch of events at once.
+     * <p>
+     * If the batch is bigger than what's already in the heap, it's
+     * cheaper to just throw everything on the end and rebuild the whole
+     * heap from the bottom up, which is O(n) instead of O(k log n).
+     * </p>
+     *
+     * @param events an array holding the events to add
+     * @param from   the index of the first event to add
+     * @param to     the index after the last event to add
+     */
+    @Override
+    public void addAll(ScheduledEvent[] events, int from, int to) {
+        int count = to - from;
+        if (count <= size) {
+            for (int i = from; i < to; i++) {
+                add(events[i]);
+            }
+            return;
+        }
+        if (size + count > heap.length) {
+            heap = Arrays.copyOf(heap, Math.max(size + count, heap.length * 2));
+        }
+        for (int i = from; i < to; i++) {
+            heap[size] = events[i];
+            events[i].queueIndex = size++;
+        }
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    @Override
+    public void remove(ScheduledEvent event) {
+        if (!contains(event)) {
+            return;
+        }
+        if (event.state == ScheduledEvent.CANCELLED) {
+            cancelled--;
+        }
+        removeAt(event.queueIndex);
+    }
+
+    @Override
+    public void cancel(ScheduledEvent event) {
+        if (!contains(event)) {
+            return;
+        }
+        cancelled++;
+        if (cancelled > (size >>> 1)) {
+            sweep();
+        }
+    }
+
+    @Override
+    public void update(ScheduledEvent event) {
+        if (!contains(event)) {
+            return;
+        }
+        int index = event.queueIndex;
+        siftDown(index);
+        if (heap[index] == event) {
+            siftUp(index);
+        }
+    }
+
+    @Override
+    public void advance(long now) {
+        this.now = now;
+    }
+
+    /**
+     * Take the earliest event out of the heap, if it's expired.
+     * <p>
+     * An event counts as expired once the time is strictly past its
+     * deadline, same as it always has.
+     * </p>
+     *
+     * @return the earliest expired event, or null
+     */
+    @Override
+    public ScheduledEvent poll() {
+        skipCancelled();
+        if (size == 0 || heap[0].deadline >= now) {
+            return null;
+        }
+        ScheduledEvent event = heap[0];
+        removeAt(0);
+        return event;
+    }
+
+    @Override
+    public long nextDeadline() {
+        skipCancelled();
+        return size == 0 ? Long.MAX_VALUE : heap[0].deadline;
+    }
+
+    @Override
+    public int size() {
+        return size - cancelled;
+    }
+
+    /**
+     * Is an event actually in this heap?
+     *
+     * @param event the event to look for
+     * @return true if the event is in the heap, cancelled or not
+     */
+    private boolean contains(ScheduledEvent event) {
+        int index = event.queueIndex;
+        return index >= 0 && index < size && heap[index] == event;
+    }
+
+    /**
+     * Throw away any cancelled events sitting at the top of the heap.
+     */
+    private void skipCancelled() {
+        while (size > 0 && heap[0].state == ScheduledEvent.CANCELLED) {
+            removeAt(0);
+            cancelled--;
+        }
+    }
+
+    /**
+     * Sweep every cancelled event out of the heap, and rebuild it.
+     */
+    private void sweep() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            ScheduledEvent event = heap[i];
+            if (event.state == ScheduledEvent.CANCELLED) {
+                event.queueIndex = -1;
+            } else {
+                heap[kept] = event;
+                event.queueIndex = kept++;
+            }
+        }
+        Arrays.fill(heap, kept, size, null);
+        size = kept;
+        cancelled = 0;
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Remove whatever's at a given index and fix the heap back up.
+     *
+     * @param index the index to remove
+     */
+    private void removeAt(int index) {
+        ScheduledEvent removed = heap[index];
+        removed.queueIndex = -1;
+        int last = --size;
+        ScheduledEvent moved = heap[last];
+        heap[last] = null;
+        if (index != last) {
+            heap[index] = moved;
+            siftDown(index);
+            if (heap[index] == moved) {
+                siftUp(index);
+            }
+        }
+    }
+
+    /**
+     * Move the event at an index up until its parent is earlier.
+     *
+     * @param index the index to sift up from
+     */
+    private void siftUp(int index) {
+        ScheduledEvent event = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!earlier(event, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].queueIndex = index;
+            index = parent;
+        }
+        heap[index] = event;
+        event.queueIndex = index;
+    }
+
+    /**
+     * Move the event at an index down until both children are later.
+     *
+     * @param index the index to sift down from
+     */
+    private void siftDown(int index) {
+        ScheduledEvent event = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            int right = child + 1;
+            if (right < size && earlier(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!earlier(heap[child], event)) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].queueIndex = index;
+            index = child;
+        }
+        heap[index] = event;
+        event.queueIndex = index;
+    }
+
+    /**
+     * Does one event come before another?
+     *
+     * @param a the first event
+     * @param b the second event
+     * @return true if a should be polled before b
+     */
+    private static boolean earlier(ScheduledEvent a, ScheduledEvent b) {
+        if (a.deadline != b.deadline) {
+            return a.deadline < b.deadline;
+        }
+        return a.sequence < b.sequence;
+    }
+}
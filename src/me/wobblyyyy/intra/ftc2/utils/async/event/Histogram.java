@@ -0,0 +1,183 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A tiny, lock-free histogram with power-of-two buckets.
+ * <p>
+ * Bucket 0 holds 0 and 1, bucket 1 holds 2 and 3, bucket 2 holds 4
+ * through 7, and so on, all the way up to bucket 62. That's nowhere near
+ * as precise as a real histogram, but it's more than enough to tell a
+ * 50 microsecond tick apart from a 5 millisecond one, and recording a
+ * value is just a couple of shifts and a store.
+ * </p>
+ * <p>
+ * Only one thread is allowed to record values (the thread ticking the
+ * scheduler), but any thread can read them at any time. Writes use
+ * ordered stores instead of full atomic increments, since there's never
+ * more than one writer to fight with. Readers might see a value that's
+ * a record or two behind, but never a torn or corrupted one.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public final class Histogram {
+    /**
+     * How many buckets there are.
+     */
+    public static final int BUCKETS = 64;
+
+    /**
+     * Where the total count is kept, right after the buckets.
+     */
+    private static final int COUNT = BUCKETS;
+
+    /**
+     * Where the sum of every value is kept.
+     */
+    private static final int SUM = BUCKETS + 1;
+
+    /**
+     * Where the largest value is kept.
+     */
+    private static final int MAX = BUCKETS + 2;
+
+    /**
+     * Every bucket, plus the count, sum and maximum.
+     */
+    private final AtomicLongArray values = new AtomicLongArray(BUCKETS + 3);
+
+    /**
+     * Record a single value. Negative values are recorded as zero.
+     * <p>
+     * This must only ever be called from one thread.
+     * </p>
+     *
+     * @param value the value to record
+     */
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int bucket = bucketOf(value);
+        values.lazySet(bucket, values.get(bucket) + 1);
+        values.lazySet(COUNT, values.get(COUNT) + 1);
+        values.lazySet(SUM, values.get(SUM) + value);
+        if (value > values.get(MAX)) {
+            values.lazySet(MAX, value);
+        }
+    }
+
+    /**
+     * Work out which bucket a value belongs in.
+     *
+     * @param value the value, which can't be negative
+     * @return the value's bucket
+     */
+    static int bucketOf(long value) {
+        return value <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * How many values have been recorded.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return values.get(COUNT);
+    }
+
+    /**
+     * The sum of every recorded value.
+     *
+     * @return the sum of recorded values
+     */
+    public long getSum() {
+        return values.get(SUM);
+    }
+
+    /**
+     * The largest recorded value.
+     *
+     * @return the largest recorded value, or 0 if nothing's been recorded
+     */
+    public long getMax() {
+        return values.get(MAX);
+    }
+
+    /**
+     * The average of every recorded value.
+     *
+     * @return the mean, or 0 if nothing's been recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getSum() / count;
+    }
+
+    /**
+     * How many values landed in a given bucket.
+     *
+     * @param bucket the bucket, from 0 to {@link Histogram#BUCKETS} - 1
+     * @return the bucket's count
+     */
+    public long getBucket(int bucket) {
+        return values.get(bucket);
+    }
+
+    /**
+     * Estimate a percentile.
+     * <p>
+     * Since the buckets are powers of two, this is only ever accurate to
+     * within a factor of two. It returns the upper edge of the bucket the
+     * percentile falls in, so it'll always err on the side of too high.
+     * </p>
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return an upper bound for the percentile, or 0 if nothing's been
+     * recorded
+     */
+    public long getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += values.get(i);
+            if (seen >= target && seen > 0) {
+                return Math.min(getMax(), i == 62 ? Long.MAX_VALUE : (2L << i) - 1);
+            }
+        }
+        return getMax();
+    }
+}
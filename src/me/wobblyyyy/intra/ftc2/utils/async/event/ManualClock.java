@@ -0,0 +1,102 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 10:41 AM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Clock} which only moves when you tell it to.
+ * <p>
+ * Time stands completely still until either set() or advance() is
+ * called. That makes this perfect for tests and benchmarks - you can
+ * push millions of events through a scheduler without ever having to
+ * actually sleep.
+ * </p>
+ * <p>
+ * The time is volatile, so it can be moved by one thread and read by
+ * another without any issues.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public class ManualClock implements Clock {
+    /**
+     * The current time, in nanoseconds.
+     */
+    private volatile long now;
+
+    /**
+     * Create a manual clock starting at zero.
+     */
+    public ManualClock() {
+        this(0);
+    }
+
+    /**
+     * Create a manual clock starting at a given time.
+     *
+     * @param now the starting time, in nanoseconds
+     */
+    public ManualClock(long now) {
+        this.now = now;
+    }
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    /**
+     * Set the current time.
+     *
+     * @param now the new time, in nanoseconds
+     */
+    public void set(long now) {
+        this.now = now;
+    }
+
+    /**
+     * Move the clock forwards by some number of nanoseconds.
+     *
+     * @param nanos how far to move the clock
+     */
+    public void advanceNanos(long nanos) {
+        now += nanos;
+    }
+
+    /**
+     * Move the clock forwards by some amount of time.
+     *
+     * @param duration how far to move the clock
+     * @param unit     the unit the duration is in
+     */
+    public void advance(long duration, TimeUnit unit) {
+        advanceNanos(unit.toNanos(duration));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs a single event's callbacks on an {@link Executor} instead of on
+ * the thread ticking the scheduler.
+ * <p>
+ * Only one of an event's callbacks is ever in flight at once, so each
+ * offloaded event just gets one of these and reuses it for every
+ * callback. Once the callback is done, it tells the scheduler through
+ * the submission queue, and the scheduler picks that up at the start of
+ * the next tick. That's what keeps open, during and close in order - the
+ * scheduler never hands the next callback over until it's heard back
+ * about the last one.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+final class Offload implements Runnable {
+    /**
+     * Run the event's onOpen().
+     */
+    static final int OPEN = 0;
+
+    /**
+     * Run the event's onDuring().
+     */
+    static final int DURING = 1;
+
+    /**
+     * Run the event's onClose().
+     */
+    static final int CLOSE = 2;
+
+    /**
+     * The scheduler to report back to.
+     */
+    private final Events events;
+
+    /**
+     * The event whose callbacks are being run.
+     */
+    private final ScheduledEvent event;
+
+    /**
+     * Where the callbacks get run.
+     */
+    final Executor executor;
+
+    /**
+     * Which callback is in flight right now.
+     */
+    int phase;
+
+    /**
+     * Create a new offload for an event.
+     *
+     * @param events   the scheduler the event belongs to
+     * @param event    the event to run callbacks for
+     * @param executor where to run them
+     */
+    Offload(Events events, ScheduledEvent event, Executor executor) {
+        this.events = events;
+        this.event = event;
+        this.executor = executor;
+    }
+
+    /**
+     * Hand one of the event's callbacks over to the executor.
+     *
+     * @param callback which callback to run
+     */
+    void dispatch(int callback) {
+        phase = callback;
+        event.inFlight = true;
+        executor.execute(this);
+    }
+
+    @Override
+    public void run() {
+        try {
+            switch (phase) {
+                case OPEN:
+                    event.callback.onOpen();
+                    break;
+                case DURING:
+                    event.callback.onDuring();
+                    break;
+                default:
+                    event.callback.onClose();
+                    break;
+            }
+        } finally {
+            events.complete(event);
+        }
+    }
+}
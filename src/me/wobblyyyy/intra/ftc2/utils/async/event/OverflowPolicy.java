@@ -0,0 +1,73 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+/**
+ * What a scheduler with a capacity does when something's scheduled while
+ * it's already full.
+ * <p>
+ * A scheduler is full once it has as many live events (scheduled, but
+ * not closed or cancelled yet) as its capacity. Every time one of these
+ * kicks in, it's counted in the scheduler's {@link EventMetrics}.
+ * </p>
+ *
+ * @author Colin Robertson
+ * @see Events#setCapacity(int, OverflowPolicy, long, java.util.concurrent.TimeUnit)
+ */
+public enum OverflowPolicy {
+    /**
+     * Refuse the new event, and throw a
+     * {@link java.util.concurrent.RejectedExecutionException} at whoever
+     * tried to schedule it.
+     */
+    REJECT,
+
+    /**
+     * Cancel the oldest live event to make room for the new one. Good for
+     * things where only the most recent requests matter.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Quietly drop the new event. It's handed back already cancelled, and
+     * none of its callbacks ever run.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Make a thread submitting from outside the scheduler wait for room.
+     * With a timeout, it's rejected if there's still no room once the
+     * timeout's up. Without one, it waits as long as it takes. If it's
+     * interrupted while it's waiting, it's rejected, with its interrupt
+     * flag left set. The thread ticking the scheduler can't wait for
+     * itself to make room, so anything it schedules while the
+     * scheduler's full is rejected straight away.
+     */
+    BLOCK
+}
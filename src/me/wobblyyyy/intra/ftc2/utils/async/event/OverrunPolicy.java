@@ -0,0 +1,62 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 12:02 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+/**
+ * What a {@link RepeatMode#FIXED_RATE fixed-rate} event does when it falls
+ * more than a whole period behind.
+ * <p>
+ * This happens when the loop stalls, or when ticks just can't keep up
+ * with how fast the event is supposed to run. Fixed-delay events never
+ * fall behind (they just drift instead), so this doesn't matter to them.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public enum OverrunPolicy {
+    /**
+     * Run every missed period, back to back, until the event has caught
+     * back up to where it should be.
+     * <p>
+     * Good for things where every single period counts, like something
+     * integrating over time.
+     * </p>
+     */
+    CATCH_UP,
+
+    /**
+     * Forget about any periods that were missed, and jump straight to
+     * the next deadline that's still in the future.
+     * <p>
+     * Good for things where only the latest run matters, like updating
+     * telemetry or polling a sensor.
+     * </p>
+     */
+    SKIP
+}
@@ -0,0 +1,73 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+/**
+ * How important an event's callbacks are, compared to everything else
+ * that's due in the same tick.
+ * <p>
+ * Every tick works through the priorities from the top down. All of the
+ * critical events' opens, during()s and closes run before anything high
+ * priority is touched, and so on down the list. Within a priority,
+ * events go earliest deadline first, with ties going to whichever was
+ * scheduled first. That order is the same every single run.
+ * </p>
+ * <p>
+ * This is also the order a budgeted tick runs out of time in - when a
+ * tick's over budget, it's always the least important work that's left
+ * over for the next one.
+ * </p>
+ *
+ * @author Colin Robertson
+ * @see ScheduledEvent#setPriority(Priority)
+ */
+public enum Priority {
+    /**
+     * Safety-critical work, like cutting power to a motor. Always runs
+     * first.
+     */
+    CRITICAL,
+
+    /**
+     * Work that should happen before the normal stuff.
+     */
+    HIGH,
+
+    /**
+     * The default - everything's normal priority unless it's told
+     * otherwise.
+     */
+    NORMAL,
+
+    /**
+     * Cosmetic work, like LEDs, that can wait until everything else is
+     * done.
+     */
+    LOW
+}
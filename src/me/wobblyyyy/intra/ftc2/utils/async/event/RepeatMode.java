@@ -0,0 +1,59 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 12:02 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+/**
+ * How a periodic event works out when its next period starts.
+ *
+ * @author Colin Robertson
+ * @see Events#schedulePeriodic(long, java.util.concurrent.TimeUnit, me.wobblyyyy.intra.ftc2.utils.TimedLifecycle, RepeatMode, OverrunPolicy)
+ */
+public enum RepeatMode {
+    /**
+     * Every period is measured from the previous period's deadline.
+     * <p>
+     * If a close runs a little late, the next period doesn't care - the
+     * deadlines stay on the exact same grid they started on, so lateness
+     * never builds up. Use this for anything that needs to hold a steady
+     * rate, like a 50 Hz control job.
+     * </p>
+     */
+    FIXED_RATE,
+
+    /**
+     * Every period is measured from when the previous period actually
+     * closed.
+     * <p>
+     * This is how repeating events have always worked. If one close runs
+     * late, every period after it is pushed back by the same amount, but
+     * there's always at least a full period between two closes.
+     * </p>
+     */
+    FIXED_DELAY
+}
@@ -0,0 +1,411 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 9:12 AM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import me.wobblyyyy.intra.ftc2.utils.Timed;
+import me.wobblyyyy.intra.ftc2.utils.TimedLifecycle;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single entry in an {@link Events} scheduler.
+ * <p>
+ * Back when the scheduler was a plain HashMap, the deadline WAS the key,
+ * which meant two events couldn't share a deadline without one of them
+ * getting nudged forwards a millisecond at a time. Now every scheduled
+ * Timed gets one of these instead, and the deadline is just a field.
+ * </p>
+ * <p>
+ * All of the links in here are intrusive - the event itself is the
+ * list node for whichever structure it happens to be sitting in. That
+ * way moving an event between queues, buckets and lists never has to
+ * allocate anything at all, and removing one is O(1).
+ * </p>
+ * <p>
+ * Everything except the getters is package-private. Only {@link Events}
+ * and the {@link EventQueue} implementations that live next to it should
+ * be poking at the bookkeeping.
+ * </p>
+ * <p>
+ * Scheduling something hands one of these back, and it doubles as a
+ * handle for the event - it can be cancelled, rescheduled or extended
+ * right from here, without having to clear its whole channel. Those all
+ * have to be called from the thread ticking the scheduler.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public final class ScheduledEvent {
+    /**
+     * The event has been scheduled but hasn't opened yet.
+     */
+    static final int PENDING = 0;
+
+    /**
+     * The event's open() has run. It's now waiting for its deadline.
+     */
+    static final int OPEN = 1;
+
+    /**
+     * The event's close() has run, and it's gone for good.
+     */
+    static final int CLOSED = 2;
+
+    /**
+     * The event was cancelled before it could close. Its close() never runs.
+     */
+    static final int CANCELLED = 3;
+
+    /**
+     * The event was scheduled with a delay, and is waiting in the queue
+     * for the delay to run out before it's opened.
+     */
+    static final int WAITING = 4;
+
+    /**
+     * Every event's priority until it's told otherwise.
+     */
+    static final int NORMAL_PRIORITY = Priority.NORMAL.ordinal();
+
+    /**
+     * Every priority, by ordinal.
+     */
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    /**
+     * The order events due in the same tick are run in - priority first,
+     * then earliest deadline, then whichever was scheduled first.
+     */
+    static final Comparator<ScheduledEvent> DISPATCH_ORDER = new Comparator<ScheduledEvent>() {
+        @Override
+        public int compare(ScheduledEvent a, ScheduledEvent b) {
+            if (a.priority != b.priority) {
+                return a.priority < b.priority ? -1 : 1;
+            }
+            if (a.deadline != b.deadline) {
+                return a.deadline < b.deadline ? -1 : 1;
+            }
+            return Long.compare(a.sequence, b.sequence);
+        }
+    };
+
+    /**
+     * The scheduler this event belongs to.
+     */
+    final Events owner;
+
+    /**
+     * The callbacks this event runs.
+     */
+    final TimedLifecycle callback;
+
+    /**
+     * Once the clock is past this, the event is closed.
+     */
+    long deadline;
+
+    /**
+     * Insertion order, used to break ties between equal deadlines.
+     */
+    long sequence;
+
+    /**
+     * Where the event is in its open / during / close lifecycle.
+     */
+    int state = PENDING;
+
+    /**
+     * The ordinal of the event's {@link Priority}. Lower runs first.
+     */
+    int priority = NORMAL_PRIORITY;
+
+    /**
+     * How long the event stays open for, once it's opened after a delay.
+     */
+    long duration;
+
+    /**
+     * How long between one period's deadline and the next, or 0 if the
+     * event doesn't repeat.
+     */
+    long period;
+
+    /**
+     * How the next period's deadline is worked out.
+     */
+    RepeatMode repeatMode;
+
+    /**
+     * What to do when a fixed-rate event falls behind.
+     */
+    OverrunPolicy overrunPolicy;
+
+    /**
+     * Whether or not the Timed actually does anything in during().
+     * <p>
+     * Events which don't override during() never get put in the active
+     * list, so they don't cost anything at all until they expire.
+     * </p>
+     */
+    boolean hasDuring;
+
+    /**
+     * Where the event's callbacks are run, or null to run them inline on
+     * the thread ticking the scheduler.
+     */
+    Offload offload;
+
+    /**
+     * Is one of the event's offloaded callbacks still running?
+     */
+    boolean inFlight;
+
+    /**
+     * Did the event expire while a callback was still in flight? If so,
+     * close() is run as soon as that callback finishes.
+     */
+    boolean closeDeferred;
+
+    /**
+     * Is the event in its scheduler's backlog, waiting for a budgeted
+     * tick to get around to closing it?
+     */
+    boolean backlogged;
+
+    /**
+     * The key this event was coalesced under, or null. It's only set
+     * until the event opens.
+     */
+    Object coalesceKey;
+
+    /**
+     * Slot the event occupies in its {@link EventQueue}, or -1 if none.
+     * <p>
+     * The heap stores the array index here, and the timing wheel stores
+     * the bucket index.
+     * </p>
+     */
+    int queueIndex = -1;
+
+    /**
+     * Scratch key for the {@link EventQueue} - the wheel stores the tick
+     * the event expires on.
+     */
+    long queueKey;
+
+    /**
+     * Previous event in the same {@link EventQueue} bucket.
+     */
+    ScheduledEvent queuePrev;
+
+    /**
+     * Next event in the same {@link EventQueue} bucket.
+     */
+    ScheduledEvent queueNext;
+
+    /**
+     * Previous event in the scheduler's list of events needing during().
+     */
+    ScheduledEvent activePrev;
+
+    /**
+     * Next event in the scheduler's list of events needing during().
+     */
+    ScheduledEvent activeNext;
+
+    /**
+     * Previous event in the scheduler's list of every live event.
+     */
+    ScheduledEvent livePrev;
+
+    /**
+     * Next event in the scheduler's list of every live event.
+     */
+    ScheduledEvent liveNext;
+
+    /**
+     * Create a new scheduled event.
+     *
+     * @param owner    the scheduler the event belongs to
+     * @param callback the callbacks that should be run
+     * @param deadline when the event should close
+     * @param sequence insertion order of the event
+     */
+    ScheduledEvent(Events owner, TimedLifecycle callback, long deadline, long sequence) {
+        this.owner = owner;
+        this.callback = callback;
+        this.deadline = deadline;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Get the Timed element this event runs.
+     *
+     * @return the scheduled Timed, or null if the event was scheduled
+     * with a plain {@link TimedLifecycle} instead
+     */
+    public Timed getTimed() {
+        return callback instanceof Timed ? (Timed) callback : null;
+    }
+
+    /**
+     * Get the callbacks this event runs.
+     *
+     * @return the scheduled callbacks
+     */
+    public TimedLifecycle getCallback() {
+        return callback;
+    }
+
+    /**
+     * Get the time after which this event closes.
+     *
+     * @return the event's deadline
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Get the length of a single period of this event.
+     *
+     * @return the event's period, in nanoseconds, or 0 if it doesn't repeat
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    /**
+     * Get how important this event is.
+     *
+     * @return the event's priority
+     */
+    public Priority getPriority() {
+        return PRIORITIES[priority];
+    }
+
+    /**
+     * Change how important this event is.
+     * <p>
+     * This takes effect from the next tick on. It has to be called from
+     * the thread ticking the scheduler, same as everything else here.
+     * </p>
+     *
+     * @param priority the event's new priority
+     * @return this event, so it can be chained right onto a schedule()
+     * @see Priority
+     */
+    public ScheduledEvent setPriority(Priority priority) {
+        owner.setPriority(this, priority.ordinal());
+        return this;
+    }
+
+    /**
+     * Does this event repeat?
+     *
+     * @return true if the event is periodic
+     */
+    public boolean isPeriodic() {
+        return period > 0;
+    }
+
+    /**
+     * Are this event's callbacks run on an executor?
+     *
+     * @return true if the event's callbacks are offloaded
+     */
+    public boolean isOffloaded() {
+        return offload != null;
+    }
+
+    /**
+     * Has this event been opened yet?
+     *
+     * @return true if open() has already run
+     */
+    public boolean isOpen() {
+        return state == OPEN;
+    }
+
+    /**
+     * Has this event been closed yet?
+     *
+     * @return true if close() has already run
+     */
+    public boolean isClosed() {
+        return state == CLOSED;
+    }
+
+    /**
+     * Was this event cancelled?
+     *
+     * @return true if the event was cancelled before it closed
+     */
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    /**
+     * Cancel this event. Its close() never runs.
+     *
+     * @return true if the event was cancelled, false if it had already
+     * closed or been cancelled
+     * @see Events#cancel(ScheduledEvent)
+     */
+    public boolean cancel() {
+        return owner.cancel(this);
+    }
+
+    /**
+     * Move this event's deadline to a given amount of time from now.
+     *
+     * @param time how long from now the new deadline is
+     * @param unit the unit the time is in
+     * @return true if the event was rescheduled, false if it had already
+     * closed or been cancelled
+     * @see Events#reschedule(ScheduledEvent, long, TimeUnit)
+     */
+    public boolean reschedule(long time, TimeUnit unit) {
+        return owner.reschedule(this, time, unit);
+    }
+
+    /**
+     * Push this event's deadline back by a given amount of time.
+     *
+     * @param time how much longer the event should last
+     * @param unit the unit the time is in
+     * @return true if the event was extended, false if it had already
+     * closed or been cancelled
+     * @see Events#extend(ScheduledEvent, long, TimeUnit)
+     */
+    public boolean extend(long time, TimeUnit unit) {
+        return owner.extend(this, time, unit);
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a scheduler on virtual time, as fast as the callbacks allow.
+ * <p>
+ * An {@link EventLoop} waits for real time to catch up with the next
+ * deadline. This doesn't wait at all - it ticks, asks the scheduler how
+ * long until anything else is due, and then just moves a
+ * {@link ManualClock} forwards by exactly that much and ticks again. An
+ * hour of scheduled behaviour goes by in however long its callbacks take
+ * to run, which is usually a few milliseconds.
+ * </p>
+ * <p>
+ * Everything happens on the calling thread, one tick after another, so
+ * two runs of the same schedule always run the same callbacks in the
+ * same order at the same virtual times. That's what makes this useful
+ * for regression testing long schedules, or sweeping a schedule's
+ * parameters without waiting around for each run.
+ * </p>
+ * <p>
+ * Events which need during() want a tick as often as possible, which on
+ * virtual time would mean forever. While any of those are open, the
+ * clock is moved forwards by at most the during interval at a time
+ * instead, same as an {@link EventLoop} would tick them.
+ * </p>
+ * <p>
+ * A few things to keep in mind:
+ * <ul>
+ *     <li>
+ *         The scheduler (or, for {@link StringEvents}, every channel) has
+ *         to get its time from the simulation's clock. Channels created
+ *         before the simulation keep whatever clock they had, so create
+ *         the simulation first.
+ *     </li>
+ *     <li>
+ *         Only work that goes through a scheduler is simulated. The old
+ *         {@code Task} and {@code RepeatingTask} classes run on a real
+ *         executor, so they can't be - schedule a periodic event instead.
+ *     </li>
+ *     <li>
+ *         Callbacks which read {@link System#nanoTime()} themselves will
+ *         see real time. Use the scheduler's {@link Events#getClock()}.
+ *     </li>
+ * </ul>
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public class Simulation {
+    /**
+     * The virtual clock.
+     */
+    private final ManualClock clock;
+
+    /**
+     * The scheduler being simulated, or null if it's every StringEvents
+     * channel instead.
+     */
+    private final Events events;
+
+    /**
+     * Longest virtual time between ticks while during() needs running, in
+     * nanoseconds.
+     */
+    private final long duringInterval;
+
+    /**
+     * How many ticks have been run.
+     */
+    private long ticks = 0;
+
+    /**
+     * Create a simulation of every {@link StringEvents} channel, with the
+     * default during interval.
+     * <p>
+     * If StringEvents isn't already using a {@link ManualClock}, a new one
+     * is installed, which is only allowed while there aren't any
+     * channels yet.
+     * </p>
+     */
+    public Simulation() {
+        this(null, EventLoop.DEFAULT_DURING_INTERVAL, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Create a simulation of a single scheduler, with the default during
+     * interval.
+     *
+     * @param events the scheduler to simulate. It has to have been created
+     *               with a {@link ManualClock}.
+     */
+    public Simulation(Events events) {
+        this(events, EventLoop.DEFAULT_DURING_INTERVAL, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Create a simulation.
+     *
+     * @param events         the scheduler to simulate, which has to have
+     *                       been created with a {@link ManualClock}, or
+     *                       null to simulate every {@link StringEvents}
+     *                       channel instead
+     * @param duringInterval longest virtual time between ticks while any
+     *                       event needs during() run
+     * @param unit           the unit the during interval is in
+     */
+    public Simulation(Events events, long duringInterval, TimeUnit unit) {
+        if (duringInterval <= 0) {
+            throw new IllegalArgumentException("The during interval must be positive, got " + duringInterval);
+        }
+        this.events = events;
+        this.duringInterval = unit.toNanos(duringInterval);
+        if (events != null) {
+            if (!(events.getClock() instanceof ManualClock)) {
+                throw new IllegalArgumentException("A simulated scheduler needs a ManualClock");
+            }
+            clock = (ManualClock) events.getClock();
+        } else if (StringEvents.getClock() instanceof ManualClock) {
+            clock = (ManualClock) StringEvents.getClock();
+        } else {
+            if (!StringEvents.events.isEmpty()) {
+                throw new IllegalStateException(
+                        "StringEvents already has channels on a real clock - " +
+                                "create the simulation before scheduling anything"
+                );
+            }
+            clock = new ManualClock();
+            StringEvents.setClock(clock);
+        }
+    }
+
+    /**
+     * Get the virtual clock.
+     *
+     * @return the clock the simulation moves forwards
+     */
+    public ManualClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Get how many ticks the simulation has run.
+     *
+     * @return the number of ticks run so far
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Run the simulation for a given amount of virtual time.
+     * <p>
+     * Everything due up to and including the end is run, and the clock is
+     * left at the end, whether or not anything happened there.
+     * </p>
+     *
+     * @param time how much virtual time to run for
+     * @param unit the unit the time is in
+     * @return how many ticks were run
+     */
+    public long runFor(long time, TimeUnit unit) {
+        return run(clock.nanoTime() + unit.toNanos(time), false);
+    }
+
+    /**
+     * Run the simulation until nothing is scheduled anymore.
+     * <p>
+     * Periodic events never run out, so there's always a limit. The clock
+     * is left wherever the last event happened, or at the limit if it was
+     * reached.
+     * </p>
+     *
+     * @param limit the most virtual time to run for
+     * @param unit  the unit the limit is in
+     * @return how many ticks were run
+     */
+    public long runUntilIdle(long limit, TimeUnit unit) {
+        return run(clock.nanoTime() + unit.toNanos(limit), true);
+    }
+
+    /**
+     * Run a single tick, and then move the clock to the next time there's
+     * anything to do.
+     *
+     * @return how far the clock moved, in nanoseconds, or
+     * {@code Long.MAX_VALUE} if nothing is scheduled (in which case it
+     * doesn't move at all)
+     */
+    public long step() {
+        tick();
+        long next = nanosUntilNext();
+        if (next != Long.MAX_VALUE) {
+            clock.advanceNanos(next);
+        }
+        return next;
+    }
+
+    /**
+     * The simulation loop - tick, jump to the next deadline, repeat.
+     *
+     * @param end       the virtual time to stop at
+     * @param untilIdle should the loop stop early once nothing's scheduled?
+     * @return how many ticks were run
+     */
+    private long run(long end, boolean untilIdle) {
+        if (events == null && StringEvents.isSharded()) {
+            throw new IllegalStateException("Sharded channels can't be simulated deterministically");
+        }
+        long started = ticks;
+        while (true) {
+            tick();
+            long next = nanosUntilNext();
+            if (next == Long.MAX_VALUE && untilIdle) {
+                break;
+            }
+            long remaining = end - clock.nanoTime();
+            if (next > remaining) {
+                if (remaining > 0) {
+                    // Nothing else is due before the end, but whatever
+                    // was due AT the end still gets a tick.
+                    clock.advanceNanos(remaining);
+                    tick();
+                }
+                break;
+            }
+            clock.advanceNanos(next);
+        }
+        return ticks - started;
+    }
+
+    /**
+     * How long until the next tick has anything to do.
+     *
+     * @return nanoseconds until the next tick is needed
+     */
+    private long nanosUntilNext() {
+        long next = events != null ? events.nanosUntilNext() : StringEvents.nanosUntilNext();
+        boolean active = events != null ? events.hasActive() : StringEvents.hasActive();
+        return active ? Math.min(next, duringInterval) : next;
+    }
+
+    /**
+     * Tick whatever's being simulated.
+     */
+    private void tick() {
+        if (events != null) {
+            events.tick();
+        } else {
+            StringEvents.tick();
+        }
+        ticks++;
+    }
+}
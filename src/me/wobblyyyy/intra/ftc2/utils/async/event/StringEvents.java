@@ -29,10 +29,17 @@
 package me.wobblyyyy.intra.ftc2.utils.async.event;
 
 import me.wobblyyyy.intra.ftc2.utils.Timed;
+import me.wobblyyyy.intra.ftc2.utils.TimedLifecycle;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 
 //import me.wobblyyyy.ftc2.utils.telem.Telemetry;
 
@@ -46,11 +53,24 @@ import java.util.Objects;
  *     <li>These won't run if the robot freezes.</li>
  *     <li>If the robot lags, these will too.</li>
  *     <li>Scheduling a ton of async events (more than 400 per string) will crash.</li>
- *     <li>This doesn't run on a separate thread.</li>
+ *     <li>This doesn't run on a separate thread (unless you turn on sharding).</li>
  * </ul>
  * </p>
  *
  * <p>
+ * If you've got a lot of channels, {@link StringEvents#enableSharding(ForkJoinPool)}
+ * will split them up between the threads of a ForkJoinPool and tick them in
+ * parallel. Every channel is still only ever ticked by one thread at a time, so
+ * the events on a single channel run in the same order they always would.
+ * </p>
+ *
+ * <p>
+ * Code that schedules on the same channel over and over again should grab
+ * the channel's handle with {@link StringEvents#handle(String)} once, and
+ * then use the int versions of schedule, clear and queryAll.
+ * </p>
+ *
+ * <p>
  * Rather than using Java's built-in async functionality, I'm using a bit of a custom
  * extension of that. My reasoning behind it isn't exactly all that important. You can
  * still go right ahead and use the async functionality Java provides for you - actually,
@@ -71,6 +91,20 @@ public class StringEvents {
      * and Events represents an instance of the event scheduler.
      * </p>
      * <p>
+     * Channels are created on demand with the default backend. If
+     * you'd like a channel to use a {@link TimingWheel}, put your own
+     * {@link Events} in here under that name before scheduling anything.
+     * </p>
+     * <p>
+     * Editing the map by hand is picked up by the next tick. Channel
+     * {@link StringEvents#handle(String) handles} follow along then, too:
+     * a handle always ends up pointing at whichever scheduler is in the
+     * map under its name. Until that tick, a handle still points at the
+     * old one. A channel with a handle that's removed from the map comes
+     * back (the same scheduler, events and all) the next time its name
+     * is used.
+     * </p>
+     * <p>
      * In general, you'll only want to assign one event, whether
      * repeating or not, to each string / key. This makes it so you
      * can easily schedule and then cancel events, even if
@@ -88,18 +122,152 @@ public class StringEvents {
      */
     public static HashMap<String, Events> events = new HashMap<>();
 
+    /**
+     * The pool channels are ticked on in sharded mode, or null if
+     * sharding isn't turned on.
+     */
+    private static ForkJoinPool pool = null;
+
+    /**
+     * One task per shard, reused every sharded tick.
+     */
+    private static Shard[] shards = new Shard[0];
+
+    /**
+     * The task that forks all of the shards and waits for them.
+     */
+    private static final RecursiveAction everyShard = new RecursiveAction() {
+        @Override
+        protected void compute() {
+            ForkJoinTask.invokeAll(shards);
+        }
+    };
+
+    /**
+     * Every channel being ticked by the current sharded tick.
+     */
+    private static Events[] tickingChannels = new Events[16];
+
+    /**
+     * How many channels are in {@link StringEvents#tickingChannels}.
+     */
+    private static int tickingCount = 0;
+
+    /**
+     * Channel names which have been resolved to a handle, and their handles.
+     */
+    private static final ConcurrentHashMap<String, Integer> handles = new ConcurrentHashMap<>();
+
+    /**
+     * Every channel with a handle, indexed by that handle.
+     */
+    private static volatile Events[] channels = new Events[16];
+
+    /**
+     * How many handles have been handed out.
+     */
+    private static int handleCount = 0;
+
+    /**
+     * The clock new channels get their time from.
+     */
+    private static Clock clock = Clock.SYSTEM;
+
+    /**
+     * The loop driving every channel, if there is one.
+     */
+    private static volatile EventLoop loop = null;
+
+    /**
+     * The recorder every channel is traced to, if there is one.
+     */
+    private static TraceRecorder trace = null;
+
+    /**
+     * How many channels have been given a trace channel number.
+     */
+    private static int traceChannels = 0;
+
+    /**
+     * The heartbeat a {@link Watchdog} is watching tick() through, if
+     * there is one.
+     */
+    private static volatile Watchdog.Heartbeat heartbeat = null;
+
+    /**
+     * One heartbeat per shard, while sharded and being watched, or null.
+     */
+    private static Watchdog.Heartbeat[] shardBeats = null;
+
+    /**
+     * The root of the tree of dotted channel names. Ticking walks this
+     * instead of the map, so paused groups can be skipped whole.
+     */
+    private static final ChannelGroup root = new ChannelGroup(null);
+
+    /**
+     * Bumped every time a channel is added to or removed from the map.
+     */
+    private static volatile int structure = 0;
+
+    /**
+     * The structure the tree was last synced with the map at.
+     */
+    private static int syncedStructure = -1;
+
+    /**
+     * How many channels were in the map when the tree was last synced.
+     */
+    private static int syncedSize = -1;
+
+    /**
+     * How many times the tree has been synced with the map.
+     */
+    private static int syncs = 0;
+
+    /**
+     * Set the clock that new channels should use.
+     * <p>
+     * Channels which already exist keep whatever clock they were made
+     * with. Deadlines from one clock don't mean anything to another, so
+     * it wouldn't make much sense to swap them out underneath a channel.
+     * If you're going to use this (say, to give everything a
+     * {@link ManualClock} in a test), do it before scheduling anything.
+     * </p>
+     *
+     * @param clock the clock new channels should use
+     */
+    public static void setClock(Clock clock) {
+        StringEvents.clock = clock;
+    }
+
+    /**
+     * Get the clock new channels are using.
+     *
+     * @return the clock new channels get their time from
+     */
+    public static Clock getClock() {
+        return clock;
+    }
+
     /**
      * Tick function which ticks all the event schedulers.
      *
      * <p>
      * Every time this is run, all of the event handler's contained
-     * within the 'events' HashMap are 'ticked.' It also adds telemetry
-     * saying how many handles whatever thing has.
+     * within the 'events' map are 'ticked.' How long each channel's tick
+     * took, how late its events fired, and how many events it has are all
+     * available from {@link StringEvents#metrics(String)}.
+     * </p>
+     * <p>
+     * Channels are ticked by walking the tree of their dotted names, so
+     * any group that's been {@link StringEvents#pause(String) paused} is
+     * skipped over in one go, no matter how much is in it.
      * </p>
      * <p>
      * This can be a processing-power consuming operation. Ticking every
-     * single HashMap means iterating over a HashMap composed of other
-     * HashMaps. Ideally, this should be done every run cycle in order to
+     * single channel means walking every channel that isn't paused.
+     * Ideally, this should be done every run cycle in order to
      * ensure that events are executed at the right time. However, this could
      * hypothetically be run every two, or three, or even four, or whatever
      * number you could possibly imagine number of times instead if you'd
@@ -107,14 +275,536 @@ public class StringEvents {
      * </p>
      */
     public static void tick() {
-        for (HashMap.Entry<String, Events> entry : events.entrySet()) {
-            entry.getValue().tick();
-//            Telemetry.addData("StringEvents_handles_" + entry.getKey(),
-//                    "Handles of " + entry.getKey(),
-//                    entry.getValue().events.size() + "");
+        // While sharded, every shard keeps its own heartbeat instead.
+        Watchdog.Heartbeat beat = pool == null ? heartbeat : null;
+        if (beat != null) {
+            beat.begin();
+        }
+        try {
+            sync();
+            if (pool != null) {
+                tickSharded();
+                return;
+            }
+            tick(root);
+        } finally {
+            if (beat != null) {
+                beat.end();
+            }
+        }
+    }
+
+    /**
+     * Tick every channel in a group that isn't paused.
+     *
+     * @param group the group to tick
+     */
+    private static void tick(final ChannelGroup group) {
+        if (group.paused) {
+            return;
+        }
+        if (group.channel != null) {
+            Events channel = current(group);
+            if (channel != null) {
+                channel.tick();
+            }
+        }
+        ChannelGroup[] children = group.childArray;
+        for (int i = 0; i < group.childCount; i++) {
+            tick(children[i]);
+        }
+    }
+
+    /**
+     * How long until ticking would actually do anything on any channel.
+     *
+     * @return nanoseconds until the earliest event on any channel is due,
+     * or {@code Long.MAX_VALUE} if nothing is scheduled anywhere
+     * @see Events#nanosUntilNext()
+     */
+    public static long nanosUntilNext() {
+        sync();
+        return nanosUntilNext(root, Long.MAX_VALUE);
+    }
+
+    /**
+     * How long until ticking would do anything in a group that isn't
+     * paused.
+     *
+     * @param group   the group to check
+     * @param soonest the soonest anything's due that's been found so far
+     * @return the soonest anything in the group, or found so far, is due
+     */
+    private static long nanosUntilNext(final ChannelGroup group, long soonest) {
+        if (group.paused) {
+            return soonest;
+        }
+        if (group.channel != null) {
+            Events channel = current(group);
+            if (channel != null) {
+                soonest = Math.min(soonest, channel.nanosUntilNext());
+            }
+        }
+        ChannelGroup[] children = group.childArray;
+        for (int i = 0; i < group.childCount && soonest > 0; i++) {
+            soonest = nanosUntilNext(children[i], soonest);
+        }
+        return soonest;
+    }
+
+    /**
+     * Are there any open events on any channel which need during() run?
+     *
+     * @return true if ticking would run at least one during()
+     * @see Events#hasActive()
+     */
+    public static boolean hasActive() {
+        sync();
+        return hasActive(root);
+    }
+
+    /**
+     * Are there any open events in a group that isn't paused which need
+     * during() run?
+     *
+     * @param group the group to check
+     * @return true if ticking the group would run at least one during()
+     */
+    private static boolean hasActive(final ChannelGroup group) {
+        if (group.paused) {
+            return false;
+        }
+        if (group.channel != null) {
+            Events channel = current(group);
+            if (channel != null && channel.hasActive()) {
+                return true;
+            }
+        }
+        ChannelGroup[] children = group.childArray;
+        for (int i = 0; i < group.childCount; i++) {
+            if (hasActive(children[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pause a whole group of channels.
+     * <p>
+     * Channel names are split up on dots, and a group is everything at or
+     * under a name - "drive.left" (or "drive.left.*") is the channel
+     * "drive.left", plus "drive.left.front", "drive.left.back.motor", and
+     * so on. "*" is every channel.
+     * </p>
+     * <p>
+     * A paused group isn't ticked at all. It's skipped in a single step,
+     * no matter how many channels or events are in it, so parking a big
+     * subsystem that isn't doing anything costs nothing. Its events don't
+     * stop the clock, though - anything that came due while it was paused
+     * runs on the first tick after it's resumed. Things can still be
+     * scheduled on a paused channel. They just won't run until it's
+     * resumed.
+     * </p>
+     * <p>
+     * This is O(1) in the size of the group, and so are
+     * {@link StringEvents#resume(String)} and
+     * {@link StringEvents#clearGroup(String)}. They all have to be called
+     * from the thread ticking StringEvents.
+     * </p>
+     *
+     * @param group the group to pause
+     */
+    public static void pause(final String group) {
+        // Every channel has to know which group it's in, so scheduling on
+        // one doesn't tick it.
+        sync();
+        root.find(group, true).paused = true;
+    }
+
+    /**
+     * Resume a paused group.
+     * <p>
+     * Only undoes a pause on exactly this group. If a group above it is
+     * paused too, it stays paused until that one's resumed.
+     * </p>
+     *
+     * @param group the group to resume
+     * @see StringEvents#pause(String)
+     */
+    public static void resume(final String group) {
+        ChannelGroup node = root.find(group, false);
+        if (node != null) {
+            node.paused = false;
+        }
+    }
+
+    /**
+     * Is a channel paused, either on its own or as part of a group?
+     *
+     * @param name the channel or group's name
+     * @return true if it won't be ticked
+     */
+    public static boolean isPaused(final String name) {
+        ChannelGroup node = root.find(name, false);
+        if (node == null) {
+            // Nothing's ever been under this name, but a group above it
+            // might still be paused.
+            int dot = name.lastIndexOf('.');
+            return dot >= 0 ? isPaused(name.substring(0, dot)) : root.paused;
+        }
+        return node.isPaused();
+    }
+
+    /**
+     * Cancel every event on every channel in a group.
+     * <p>
+     * Unlike {@link StringEvents#clear(String)}, the channels aren't
+     * deleted, and nothing is actually cancelled straight away. The group
+     * is just marked as cleared, and each channel in it cancels all of its
+     * events the next time it's ticked or has something scheduled on it.
+     * Either way, nothing that was scheduled before this is ever run
+     * again, and anything scheduled after it is.
+     * </p>
+     *
+     * @param group the group to clear
+     * @see StringEvents#pause(String)
+     */
+    public static void clearGroup(final String group) {
+        // Channels made since the last tick aren't in the tree yet. They
+        // have to be before the clear's stamped, or they'd be hooked up
+        // afterwards looking like they'd already been cleared.
+        sync();
+        root.find(group, true).clearedAt = ++ChannelGroup.epoch;
+    }
+
+    /**
+     * Make sure the tree of channel names matches the channel map.
+     * <p>
+     * Channels made in here bump the map's structure count, but channels
+     * can also be put in (or taken out of) the public map by hand. Any
+     * change to the structure count or the map's size means the tree's
+     * out of date, and it's fixed up here, before anything walks it.
+     * Channels swapped for others without the size changing are caught by
+     * {@link StringEvents#current(ChannelGroup)} instead.
+     * </p>
+     */
+    private static void sync() {
+        int current = structure;
+        if (current == syncedStructure && events.size() == syncedSize) {
+            return;
+        }
+        int stamp = ++syncs;
+        Events[] handled = channels;
+        for (Map.Entry<String, Events> entry : events.entrySet()) {
+            ChannelGroup node = root.find(entry.getKey(), true);
+            node.attach(entry.getKey(), entry.getValue());
+            node.seenAt = stamp;
+            Integer handle = handles.get(entry.getKey());
+            if (handle != null) {
+                // Put in the map by hand - the handle follows the map.
+                handled[handle] = entry.getValue();
+            }
+        }
+        detachMissing(root, stamp);
+        syncedStructure = current;
+        syncedSize = events.size();
+    }
+
+    /**
+     * Get whichever channel is in the map under a node's name.
+     * <p>
+     * Swapping one channel for another in the map by hand doesn't change
+     * its size, so sync() can't spot it. Instead, every walk checks each
+     * node's channel against the map on its way past. If they don't
+     * match, the one in the map is used, and the whole tree is resynced
+     * before the next walk.
+     * </p>
+     *
+     * @param group a node with a channel
+     * @return the channel in the map, or null if it's been taken out
+     */
+    private static Events current(final ChannelGroup group) {
+        Events ev = events.get(group.name);
+        if (ev != group.channel) {
+            syncedStructure = -1;
+        }
+        return ev;
+    }
+
+    /**
+     * Unhook any channel which wasn't in the map during the last sync.
+     *
+     * @param group the group to check
+     * @param stamp the last sync's stamp
+     */
+    private static void detachMissing(final ChannelGroup group, final int stamp) {
+        if (group.channel != null && group.seenAt != stamp) {
+            if (group.channel.group == group) {
+                group.channel.group = null;
+            }
+            group.channel = null;
+        }
+        ChannelGroup[] children = group.childArray;
+        for (int i = 0; i < group.childCount; i++) {
+            detachMissing(children[i], stamp);
+        }
+    }
+
+    /**
+     * Hook every channel, including ones created later, up to a loop, so
+     * submitting something on any of them wakes the loop up.
+     *
+     * @param eventLoop the loop driving every channel, or null to unhook
+     */
+    static void setLoop(EventLoop eventLoop) {
+        loop = eventLoop;
+        for (Events ev : events.values()) {
+            ev.loop = eventLoop;
+        }
+    }
+
+    /**
+     * Trace every channel, including ones created later, to a recorder.
+     * <p>
+     * Each channel's records are tagged with a number of its own, handed
+     * out in the order the channels are traced in, so replaying the trace
+     * puts every channel back on its own scheduler.
+     * </p>
+     *
+     * @param recorder the recorder to write to, or null to stop tracing
+     * @see Events#setTrace(TraceRecorder, int)
+     */
+    public static void setTrace(TraceRecorder recorder) {
+        trace = recorder;
+        traceChannels = 0;
+        for (Events ev : events.values()) {
+            ev.setTrace(recorder, traceChannels++);
+        }
+    }
+
+    /**
+     * Hook every channel, including ones created later, up to a
+     * watchdog's heartbeat. Only tick() itself begins and ends it - the
+     * channels just note which callback they're running.
+     *
+     * @param beat the heartbeat, or null to stop being watched
+     * @see Watchdog#watchStringEvents()
+     */
+    static void setHeartbeat(Watchdog.Heartbeat beat) {
+        heartbeat = beat;
+        splitHeartbeat();
+    }
+
+    /**
+     * Give every shard a heartbeat of its own while sharded, and point
+     * every channel back at the main heartbeat.
+     * <p>
+     * Channels sharing one heartbeat across shards would be writing the
+     * same callback-in-flight field from different threads, so one shard
+     * finishing a callback would hide another one being stuck in its own.
+     * While sharded, each shard points the channels it ticks at its own
+     * heartbeat instead.
+     * </p>
+     */
+    private static void splitHeartbeat() {
+        Watchdog.Heartbeat beat = heartbeat;
+        if (beat != null && pool != null) {
+            shardBeats = new Watchdog.Heartbeat[shards.length];
+            for (int i = 0; i < shardBeats.length; i++) {
+                shardBeats[i] = new Watchdog.Heartbeat("StringEvents shard " + i, null);
+            }
+            beat.parts = shardBeats;
+        } else {
+            shardBeats = null;
+            if (beat != null) {
+                beat.parts = null;
+            }
+        }
+        for (Events ev : events.values()) {
+            ev.heartbeat = beat;
+        }
+    }
+
+    /**
+     * Get the heartbeat tick() is being watched through.
+     *
+     * @return the heartbeat, or null if nothing's watching
+     */
+    static Watchdog.Heartbeat getHeartbeat() {
+        return heartbeat;
+    }
+
+    /**
+     * Put a channel in the map under a name that doesn't have one.
+     * <p>
+     * If the name has a handle, its channel was removed from the map by
+     * hand at some point. It's put back, rather than replaced with a new
+     * one, so the name and the handle never point at different channels.
+     * </p>
+     *
+     * @param name the channel's name
+     * @return the channel now in the map under that name
+     */
+    private static Events create(final String name) {
+        Integer handle = handles.get(name);
+        Events ev = handle != null ? channels[handle] : newChannel();
+        events.put(name, ev);
+        structure++;
+        // Hook it into the tree straight away, rather than waiting for the
+        // next sync - it might be in a paused group.
+        root.find(name, true).attach(name, ev);
+        return ev;
+    }
+
+    /**
+     * Create a new channel, hooked up to the loop, the trace and the
+     * watchdog if there are any.
+     *
+     * @return a brand new, empty channel
+     */
+    private static Events newChannel() {
+        Events ev = new Events(clock);
+        ev.loop = loop;
+        ev.heartbeat = heartbeat;
+        if (trace != null) {
+            ev.setTrace(trace, traceChannels++);
+        }
+        return ev;
+    }
+
+    /**
+     * Turn on sharded mode, ticking channels in parallel.
+     * <p>
+     * Channels are split up into as many shards as the pool has threads,
+     * and every shard is ticked as its own task. tick() doesn't return
+     * until every single shard is finished, so once it does, every
+     * channel has been ticked exactly once, same as always.
+     * </p>
+     * <p>
+     * A couple things to keep in mind while this is on:
+     * <ul>
+     *     <li>
+     *         Callbacks run on the pool's threads, not the thread that
+     *         called tick(). Don't touch anything thread-unsafe in them.
+     *     </li>
+     *     <li>
+     *         A callback scheduling something on its own channel is fine.
+     *         A callback scheduling something on a different channel has to
+     *         use {@link StringEvents#submit(String, long, TimedLifecycle)}, because
+     *         that channel might be getting ticked by another thread.
+     *     </li>
+     *     <li>
+     *         The channel map is still a plain HashMap, so callbacks can't
+     *         create new channels. Create them (and give them handles)
+     *         before ticking.
+     *     </li>
+     * </ul>
+     * </p>
+     *
+     * @param forkJoinPool the pool to tick channels on
+     */
+    public static void enableSharding(ForkJoinPool forkJoinPool) {
+        shards = new Shard[forkJoinPool.getParallelism()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, shards.length);
+        }
+        pool = forkJoinPool;
+        splitHeartbeat();
+    }
+
+    /**
+     * Turn sharded mode back off, ticking channels one after another
+     * on whichever thread calls tick().
+     */
+    public static void disableSharding() {
+        pool = null;
+        shards = new Shard[0];
+        splitHeartbeat();
+    }
+
+    /**
+     * Is sharded mode turned on?
+     *
+     * @return true if channels are being ticked in parallel
+     */
+    public static boolean isSharded() {
+        return pool != null;
+    }
+
+    /**
+     * Tick every channel in parallel.
+     * <p>
+     * The channels are copied into an array first, so the shards can
+     * each just take a range of it. The array sticks around between
+     * ticks, and so do the shard tasks themselves.
+     * </p>
+     */
+    private static void tickSharded() {
+        tickingCount = 0;
+        collect(root);
+        for (Shard shard : shards) {
+            shard.reinitialize();
+        }
+        everyShard.reinitialize();
+        try {
+            pool.invoke(everyShard);
+        } finally {
+            Arrays.fill(tickingChannels, 0, tickingCount, null);
         }
     }
 
+    /**
+     * Copy every channel in a group that isn't paused into the array of
+     * channels to tick.
+     *
+     * @param group the group to copy
+     */
+    private static void collect(final ChannelGroup group) {
+        if (group.paused) {
+            return;
+        }
+        Events channel = group.channel != null ? current(group) : null;
+        if (channel != null) {
+            if (tickingCount == tickingChannels.length) {
+                tickingChannels = Arrays.copyOf(tickingChannels, tickingCount * 2);
+            }
+            tickingChannels[tickingCount++] = channel;
+        }
+        ChannelGroup[] children = group.childArray;
+        for (int i = 0; i < group.childCount; i++) {
+            collect(children[i]);
+        }
+    }
+
+    /**
+     * Schedule an event from any thread, including from a callback on a
+     * different channel while sharded.
+     * <p>
+     * The channel has to exist already - this won't create it. Channels
+     * with a {@link StringEvents#handle(String) handle} are found without
+     * touching the channel map at all, which is what makes this safe from
+     * other threads. Anything else is looked up in the map, which is only
+     * safe while nothing's adding channels to it.
+     * </p>
+     *
+     * @param name     the channel to schedule on
+     * @param duration how long the event should last, in milliseconds
+     * @param timed    the actual event
+     * @return the submitted event
+     * @see Events#submit(long, TimedLifecycle)
+     */
+    public static ScheduledEvent submit(final String name,
+                                        final long duration,
+                                        final TimedLifecycle timed) {
+        Integer handle = handles.get(name);
+        Events ev = handle != null ? channels[handle] : events.get(name);
+        if (ev == null) {
+            throw new IllegalArgumentException("No channel named " + name);
+        }
+        return ev.submit(duration, timed);
+    }
+
     /**
      * Schedules an event.
      *
@@ -131,11 +821,9 @@ public class StringEvents {
      * </p>
      *
      * <p>
-     * If the delay is anything other than zero, create a new
-     * scheduled event, with a duration of however long the
-     * delay is. Once that event expires and the close method
-     * is run, schedule another event, with the actual duration
-     * and the actual event included.
+     * If the delay is anything other than zero, the event waits in the
+     * queue until the delay has run out, and only then is it opened,
+     * lasting for however long the duration is.
      * </p>
      *
      * <p>
@@ -157,16 +845,11 @@ public class StringEvents {
      * </p>
      *
      * <p>
-     * Although it might be a little bit annoying, the code
-     * to schedule a timed event is a lot longer. This is mostly
-     * because every timed event actually has to spawn two events
-     * with slightly different expiration dates. And not only that,
-     * but because 'ran' is a boolean stored in the Timed element,
-     * it has to be manually set to false every single time, which
-     * is why I clone the original timed and set the value to false.
-     * If you're reading this and you have a better method of doing
-     * this, please let me know, I'd much rather not have this poorly
-     * written code just lying here.
+     * Repeating events used to be a bit of a mess - every period spawned
+     * a second event just to schedule the next one, along with a fresh
+     * copy of the Timed with 'ran' set back to false. Now a repeating
+     * event is just a fixed-delay periodic event with the duration as its
+     * period. It's stored once and rearmed in place after every close.
      * </p>
      *
      * @param name         the string name of the event scheduler you'd like to access.
@@ -181,27 +864,167 @@ public class StringEvents {
      *                     duration between executions of a repeating event, change the "duration."
      * @param timed        the actual timed element which should be executed. Timed elements are
      *                     fairly complex, so I'd suggest you go check out {@link Timed}.
-     * @param shouldRepeat whether or not the event should repeat itself. Repeating events are not
-     *                     affected by delay. Additionally, repeating events schedule two separate
-     *                     events - one to schedule another execution, and one to actually handle
-     *                     the execution of the Timed you've provided.
-     */
-    public static void schedule(final String name,
-                                final long duration,
-                                final long delay,
-                                final Timed timed,
-                                final boolean shouldRepeat) {
-        if (events.containsKey(name)) {
+     * @param shouldRepeat whether or not the event should repeat itself. Repeating events are
+     *                     rearmed in place after every close, with the next period measured from
+     *                     when the previous one closed.
+     * @return the scheduled event, which can be cancelled, rescheduled or
+     * extended later on with {@link ScheduledEvent#cancel()} and friends
+     */
+    public static ScheduledEvent schedule(final String name,
+                                          final long duration,
+                                          final long delay,
+                                          final TimedLifecycle timed,
+                                          final boolean shouldRepeat) {
+        Events ev = events.get(name);
+        if (ev == null) {
+            ev = create(name);
+        }
+        return ev.schedule(duration, (int) delay, timed, shouldRepeat);
+    }
+
+    /**
+     * Schedules an event on a channel, using its handle.
+     * <p>
+     * This does exactly what the String version does, just without
+     * hashing the channel's name to find it.
+     * </p>
+     *
+     * @param handle       the channel's handle, from {@link StringEvents#handle(String)}
+     * @param duration     how long the event should last, in milliseconds
+     * @param delay        the delay before the event takes place
+     * @param timed        the actual timed element which should be executed
+     * @param shouldRepeat whether or not the event should repeat itself
+     * @return the scheduled event
+     * @see StringEvents#schedule(String, long, long, TimedLifecycle, boolean)
+     */
+    public static ScheduledEvent schedule(final int handle,
+                                          final long duration,
+                                          final long delay,
+                                          final TimedLifecycle timed,
+                                          final boolean shouldRepeat) {
+        return channels[handle].schedule(duration, (int) delay, timed, shouldRepeat);
+    }
+
+    /**
+     * Resolve a channel name to a handle.
+     * <p>
+     * Every String operation in here has to hash the channel's name
+     * (sometimes twice) to figure out which channel it's talking about.
+     * If you're scheduling thousands of times a second, that adds up.
+     * Resolve the name to a handle once, hang on to it, and use the int
+     * versions of the methods instead - they go straight to an array.
+     * </p>
+     * <p>
+     * The channel is created if it doesn't exist yet. A name always
+     * resolves to the same handle, and a handle stays valid forever,
+     * even after the channel's been cleared.
+     * </p>
+     * <p>
+     * A handle is bound to the name, not to one particular scheduler. If
+     * a different scheduler is put in {@link StringEvents#events} under
+     * the name by hand, the handle points at it from the next tick on.
+     * </p>
+     *
+     * @param name the channel's name
+     * @return the channel's handle
+     */
+    public static int handle(final String name) {
+        Integer handle = handles.get(name);
+        if (handle != null) {
+            return handle;
+        }
+        synchronized (handles) {
+            handle = handles.get(name);
+            if (handle != null) {
+                return handle;
+            }
             Events ev = events.get(name);
-            assert ev != null;
-            ev.schedule(duration, (int) delay, timed, shouldRepeat);
-        } else {
-            Events ev = new Events();
-            ev.schedule(duration, (int) delay, timed, shouldRepeat);
-            events.put(name, ev);
+            if (ev == null) {
+                ev = create(name);
+            }
+            Events[] grown = channels;
+            if (handleCount == grown.length) {
+                grown = Arrays.copyOf(grown, handleCount * 2);
+            }
+            grown[handleCount] = ev;
+            channels = grown;
+            handle = handleCount++;
+            handles.put(name, handle);
+            return handle;
         }
     }
 
+    /**
+     * Get the scheduler behind a handle.
+     *
+     * @param handle the channel's handle
+     * @return the channel's scheduler
+     */
+    public static Events channel(final int handle) {
+        return channels[handle];
+    }
+
+    /**
+     * Get the metrics for a channel.
+     *
+     * @param name the channel's name
+     * @return the channel's metrics, or null if there's no such channel
+     * @see Events#getMetrics()
+     */
+    public static EventMetrics metrics(final String name) {
+        Events ev = events.get(name);
+        return ev == null ? null : ev.getMetrics();
+    }
+
+    /**
+     * Get the metrics for a channel, using its handle.
+     *
+     * @param handle the channel's handle
+     * @return the channel's metrics
+     * @see Events#getMetrics()
+     */
+    public static EventMetrics metrics(final int handle) {
+        return channels[handle].getMetrics();
+    }
+
+    /**
+     * Limit how many live events a channel can have.
+     * <p>
+     * The channel is created if it doesn't exist yet. Whatever the
+     * overflow policy does is counted in the channel's
+     * {@link StringEvents#metrics(String) metrics}.
+     * </p>
+     *
+     * @param name     the channel's name
+     * @param capacity the most live events allowed on the channel
+     * @param policy   what to do with events scheduled while it's full
+     * @see Events#setCapacity(int, OverflowPolicy)
+     */
+    public static void setCapacity(final String name,
+                                   final int capacity,
+                                   final OverflowPolicy policy) {
+        channels[handle(name)].setCapacity(capacity, policy);
+    }
+
+    /**
+     * Limit how many live events a channel can have, with a timeout for
+     * {@link OverflowPolicy#BLOCK}.
+     *
+     * @param name     the channel's name
+     * @param capacity the most live events allowed on the channel
+     * @param policy   what to do with events scheduled while it's full
+     * @param timeout  how long a blocked submitter waits for room
+     * @param unit     the unit the timeout is in
+     * @see Events#setCapacity(int, OverflowPolicy, long, TimeUnit)
+     */
+    public static void setCapacity(final String name,
+                                   final int capacity,
+                                   final OverflowPolicy policy,
+                                   final long timeout,
+                                   final TimeUnit unit) {
+        channels[handle(name)].setCapacity(capacity, policy, timeout, unit);
+    }
+
     /**
      * Delete a string key thingy.
      * <p>
@@ -212,25 +1035,137 @@ public class StringEvents {
      * You can use this to 'cancel' an event you've scheduled
      * in the past.
      * </p>
+     * <p>
+     * Channels which have been given a handle are emptied out instead
+     * of being deleted, so that their handle keeps working.
+     * </p>
      *
      * @param name the key to delete
      */
     public static void clear(final String name) {
-        events.remove(name);
+        Integer handle = handles.get(name);
+        if (handle != null) {
+            clear(handle.intValue());
+        } else if (events.remove(name) != null) {
+            structure++;
+        }
+    }
+
+    /**
+     * Cancel every event on a channel, using its handle.
+     *
+     * @param handle the channel's handle
+     * @see StringEvents#clear(String)
+     */
+    public static void clear(final int handle) {
+        channels[handle].clear();
     }
 
     /**
      * Return a single event based on a name string.
      * <p>
-     * This just returns the first element in the array list
-     * of all of the elements, gathered from {@link StringEvents#queryAll(String)}
+     * This used to copy every Timed on the channel into a list, just to
+     * hand back the first one. Now it walks the channel until it finds
+     * one, and stops there.
      * </p>
      *
      * @param name the key to query for
-     * @return the first scheduled Timed under a certain query.
+     * @return the first scheduled Timed under a certain query, or null if
+     * there isn't one.
      */
     public static Timed query(final String name) {
-        return queryAll(name).get(0);
+        Events ev = events.get(name);
+        if (ev == null) {
+            return null;
+        }
+        for (ScheduledEvent event = ev.firstLive(); event != null; event = event.liveNext) {
+            if (event.getTimed() != null) {
+                return event.getTimed();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get a read-only view of the events on a channel in a given state.
+     * <p>
+     * Unlike queryAll(), this doesn't copy anything, and it doesn't
+     * allocate anything either - each channel keeps one view per state
+     * around and hands the same one back every time. It's meant to be
+     * polled every single loop. Counting the events in a view with
+     * {@link EventView#size()} is O(1).
+     * </p>
+     *
+     * @param name the channel's name
+     * @param kind {@link EventView#PENDING}, {@link EventView#OPEN} or
+     *             {@link EventView#CLOSING}
+     * @return the channel's view, or null if there's no such channel
+     * @see EventView
+     */
+    public static EventView view(final String name, final int kind) {
+        Events ev = events.get(name);
+        return ev == null ? null : view(ev, kind);
+    }
+
+    /**
+     * Get a read-only view of the events on a channel in a given state,
+     * using the channel's handle.
+     *
+     * @param handle the channel's handle
+     * @param kind   {@link EventView#PENDING}, {@link EventView#OPEN} or
+     *               {@link EventView#CLOSING}
+     * @return the channel's view
+     * @see StringEvents#view(String, int)
+     */
+    public static EventView view(final int handle, final int kind) {
+        return view(channels[handle], kind);
+    }
+
+    /**
+     * Count the events on a channel in a given state, in O(1).
+     *
+     * @param name the channel's name
+     * @param kind {@link EventView#PENDING}, {@link EventView#OPEN} or
+     *             {@link EventView#CLOSING}
+     * @return how many events are in that state, or 0 if there's no such
+     * channel
+     */
+    public static int count(final String name, final int kind) {
+        Events ev = events.get(name);
+        return ev == null ? 0 : ev.count(kind);
+    }
+
+    /**
+     * Count the events on a channel in a given state, in O(1), using the
+     * channel's handle.
+     *
+     * @param handle the channel's handle
+     * @param kind   {@link EventView#PENDING}, {@link EventView#OPEN} or
+     *               {@link EventView#CLOSING}
+     * @return how many events are in that state
+     */
+    public static int count(final int handle, final int kind) {
+        return channels[handle].count(kind);
+    }
+
+    /**
+     * Pick one of a channel's views.
+     *
+     * @param ev   the channel's scheduler
+     * @param kind which view
+     * @return the view
+     */
+    private static EventView view(final Events ev, final int kind) {
+        switch (kind) {
+            case EventView.PENDING:
+                return ev.pending();
+            case EventView.OPEN:
+                return ev.open();
+            case EventView.CLOSING:
+                return ev.closing();
+            default:
+                throw new IllegalArgumentException("No such view: " + kind);
+        }
     }
 
     /**
@@ -238,20 +1173,102 @@ public class StringEvents {
      * <p>
      * If you only want to get a single Timed, which is, most
      * of the time, the case, you should instead use the
-     * {@link StringEvents#query(String)} method.
+     * {@link StringEvents#query(String)} method. If you're going to be
+     * calling this every loop, use {@link StringEvents#view(String, int)}
+     * instead, which doesn't copy anything.
+     * </p>
+     *
+     * <p>
+     * Events scheduled with a plain {@link TimedLifecycle} rather than a
+     * Timed aren't included.
      * </p>
      *
      * @param name the key you'd like to query.
      * @return an ArrayList of Timed elements from the key
      */
     public static ArrayList<Timed> queryAll(final String name) {
+        return queryAll(events.get(name));
+    }
+
+    /**
+     * Get an array list of all the scheduled events on a channel, using
+     * its handle.
+     *
+     * @param handle the channel's handle
+     * @return an ArrayList of Timed elements from the channel
+     */
+    public static ArrayList<Timed> queryAll(final int handle) {
+        return queryAll(channels[handle]);
+    }
+
+    /**
+     * Copy every live Timed on a channel into a list.
+     *
+     * @param ev the channel's scheduler, or null if there isn't one
+     * @return an ArrayList of Timed elements from the channel
+     */
+    private static ArrayList<Timed> queryAll(final Events ev) {
         ArrayList<Timed> list = new ArrayList<>();
-        if (events.containsKey(name)) {
-            for (HashMap.Entry<Long, Timed> entry : Objects.requireNonNull(
-                    events.get(name)).events.entrySet()) {
-                list.add(entry.getValue());
+        if (ev != null) {
+            for (ScheduledEvent event = ev.firstLive(); event != null; event = event.liveNext) {
+                if (event.getTimed() != null) {
+                    list.add(event.getTimed());
+                }
             }
         }
         return list;
     }
+
+    /**
+     * A single shard of channels for a sharded tick.
+     * <p>
+     * Shard n of m ticks the nth slice of the channel array. Every
+     * channel falls in exactly one slice, so no channel can ever be
+     * ticked by two threads at once.
+     * </p>
+     */
+    private static final class Shard extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Which shard this is.
+         */
+        private final int index;
+
+        /**
+         * How many shards there are in total.
+         */
+        private final int count;
+
+        Shard(int index, int count) {
+            this.index = index;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            int from = (int) ((long) tickingCount * index / count);
+            int to = (int) ((long) tickingCount * (index + 1) / count);
+            Watchdog.Heartbeat[] beats = shardBeats;
+            Watchdog.Heartbeat beat = beats != null ? beats[index] : null;
+            if (beat == null) {
+                for (int i = from; i < to; i++) {
+                    tickingChannels[i].tick();
+                }
+                return;
+            }
+            beat.begin();
+            try {
+                for (int i = from; i < to; i++) {
+                    Events channel = tickingChannels[i];
+                    // Nobody else is ticking this channel right now, so
+                    // it's safe to point it at this shard's heartbeat.
+                    channel.heartbeat = beat;
+                    channel.tick();
+                }
+            } finally {
+                beat.end();
+            }
+        }
+    }
 }
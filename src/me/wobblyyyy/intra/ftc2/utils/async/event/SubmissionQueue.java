@@ -0,0 +1,156 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 11:20 AM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock-free, multi-producer, single-consumer queue of submissions.
+ * <p>
+ * This is how threads other than the one ticking a scheduler get to
+ * schedule and cancel events. Any number of threads can offer at the
+ * same time without ever taking a lock - all a producer does is a single
+ * atomic swap on the tail. The one thread that ticks the scheduler is the
+ * only one allowed to poll, and it drains everything in one go at the
+ * start of each tick.
+ * </p>
+ * <p>
+ * It's the usual linked list with a stub node at the front. The consumer
+ * only ever touches the head, the producers only ever touch the tail,
+ * and the two don't fight over anything.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+final class SubmissionQueue {
+    /**
+     * Submission type for scheduling a new event.
+     */
+    static final int SCHEDULE = 0;
+
+    /**
+     * Submission type for cancelling an event.
+     */
+    static final int CANCEL = 1;
+
+    /**
+     * Submission type for an offloaded callback finishing.
+     */
+    static final int COMPLETE = 2;
+
+    /**
+     * A single request from a producer.
+     */
+    static final class Submission {
+        /**
+         * What kind of request this is.
+         */
+        int type;
+
+        /**
+         * The event the request is about.
+         */
+        ScheduledEvent event;
+
+        /**
+         * The next submission in the queue.
+         */
+        volatile Submission next;
+    }
+
+    /**
+     * The last submission offered, which producers swap themselves into.
+     */
+    private final AtomicReference<Submission> tail;
+
+    /**
+     * The stub node the consumer reads from. Only the consumer uses this.
+     */
+    private Submission head;
+
+    /**
+     * Create an empty submission queue.
+     */
+    SubmissionQueue() {
+        Submission stub = new Submission();
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    /**
+     * Add a request to the queue. This is safe from any thread.
+     *
+     * @param type  the kind of request
+     * @param event the event the request is about
+     */
+    void offer(int type, ScheduledEvent event) {
+        Submission submission = new Submission();
+        submission.type = type;
+        submission.event = event;
+        Submission previous = tail.getAndSet(submission);
+        previous.next = submission;
+    }
+
+    /**
+     * Take the next request out of the queue.
+     * <p>
+     * This must only ever be called by the thread ticking the scheduler.
+     * The returned submission becomes the new stub, so copy what you
+     * need out of it straight away and don't hang onto it.
+     * </p>
+     * <p>
+     * A producer which has swapped the tail but not linked itself in yet
+     * isn't visible until it does. That's fine - it'll just get picked up
+     * on the next drain instead.
+     * </p>
+     *
+     * @return the next request, or null if there's nothing available
+     */
+    Submission poll() {
+        Submission next = head.next;
+        if (next == null) {
+            return null;
+        }
+        head.event = null;
+        head = next;
+        return next;
+    }
+
+    /**
+     * Is there anything waiting to be polled?
+     * <p>
+     * Same rules as poll() - only the consumer should call this.
+     * </p>
+     *
+     * @return true if poll() would return null
+     */
+    boolean isEmpty() {
+        return head.next == null;
+    }
+}
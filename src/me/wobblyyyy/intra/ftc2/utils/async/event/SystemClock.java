@@ -0,0 +1,46 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 10:41 AM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+/**
+ * A {@link Clock} backed by System.nanoTime().
+ * <p>
+ * This is monotonic, so it'll never go backwards or skip ahead when the
+ * system clock gets adjusted. You probably don't need to make one of
+ * these yourself - just use {@link Clock#SYSTEM}.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public final class SystemClock implements Clock {
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 9:12 AM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hierarchical hashed timing wheel {@link EventQueue}.
+ * <p>
+ * Time is chopped up into ticks of a fixed resolution. The wheel has
+ * several levels of 64 buckets each - level 0 buckets are one tick wide,
+ * level 1 buckets are 64 ticks wide, level 2 buckets are 4096 ticks wide,
+ * and so on. An event goes into the level where its expiry tick first
+ * differs from the current tick, so far-away events sit in wide buckets
+ * up top and near events sit in narrow buckets down the bottom.
+ * </p>
+ * <p>
+ * As time moves forwards, a wide bucket is eventually reached and its
+ * events "cascade" down into narrower buckets, until they reach level 0
+ * and expire. Every event cascades at most once per level, so inserting
+ * and expiring are both O(1). Every level also keeps a 64-bit bitmap of
+ * which of its buckets have anything in them, which lets the wheel jump
+ * straight over empty stretches of time instead of walking them tick by
+ * tick. What that means is that advancing the wheel costs however many
+ * events expire (plus a tiny bit of bit twiddling), no matter how many
+ * events are sitting in the wheel.
+ * </p>
+ * <p>
+ * The catch is precision. An event is never closed early, but it can be
+ * closed up to one resolution late. The default resolution is a single
+ * millisecond, which is about as precise as a loop-based robot is going
+ * to notice anyway. Events expiring on the same tick come out in the
+ * order they were added in.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public class TimingWheel implements EventQueue {
+    /**
+     * How many bits of the tick each level is responsible for.
+     */
+    private static final int SLOT_BITS = 6;
+
+    /**
+     * How many buckets there are on each level.
+     */
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    /**
+     * Mask used to pull a single level's bucket out of a tick.
+     */
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /**
+     * How many levels there are - enough to cover a whole 64-bit tick.
+     */
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    /**
+     * The index of the list of expired events, right after the buckets.
+     */
+    private static final int DUE = LEVELS * SLOTS;
+
+    /**
+     * How long a single tick is, in nanoseconds.
+     */
+    private final long resolution;
+
+    /**
+     * First event in each bucket, with the expired list on the end.
+     */
+    private final ScheduledEvent[] heads = new ScheduledEvent[DUE + 1];
+
+    /**
+     * Last event in each bucket, with the expired list on the end.
+     */
+    private final ScheduledEvent[] tails = new ScheduledEvent[DUE + 1];
+
+    /**
+     * Which buckets on each level have events in them.
+     */
+    private final long[] occupied = new long[LEVELS];
+
+    /**
+     * The time the wheel started at. Ticks are counted from here.
+     */
+    private long origin;
+
+    /**
+     * The tick the wheel has been advanced up to.
+     */
+    private long current;
+
+    /**
+     * Has the wheel been advanced yet?
+     */
+    private boolean started = false;
+
+    /**
+     * How many events are in the wheel, expired or not.
+     */
+    private int size = 0;
+
+    /**
+     * Create a timing wheel with a resolution of one millisecond.
+     */
+    public TimingWheel() {
+        this(1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a timing wheel with a given resolution.
+     *
+     * @param resolution how long a single tick is
+     * @param unit       the unit the resolution is in
+     */
+    public TimingWheel(long resolution, TimeUnit unit) {
+        this(unit.toNanos(resolution));
+    }
+
+    /**
+     * Create a timing wheel with a given resolution.
+     * <p>
+     * A coarser resolution doesn't make the wheel any faster - it only
+     * means more events land on the same tick. You'd only really want to
+     * bump this up if events don't need to be very precise anyway.
+     * </p>
+     *
+     * @param resolution how long a single tick is, in nanoseconds
+     */
+    public TimingWheel(long resolution) {
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("Resolution must be positive, got " + resolution);
+        }
+        this.resolution = resolution;
+    }
+
+    /**
+     * Get the length of a single tick.
+     *
+     * @return the wheel's resolution
+     */
+    public long getResolution() {
+        return resolution;
+    }
+
+    @Override
+    public void add(ScheduledEvent event) {
+        if (!started) {
+            throw new IllegalStateException("A timing wheel must be advanced before anything is added");
+        }
+        // An event expires on the first tick that starts after its
+        // deadline, so it can never be closed early.
+        long offset = event.deadline - origin;
+        event.queueKey = offset < 0 ? 0 : Math.floorDiv(offset, resolution) + 1;
+        place(event);
+        size++;
+    }
+
+    @Override
+    public void remove(ScheduledEvent event) {
+        if (event.queueIndex < 0) {
+            return;
+        }
+        unlink(event);
+        size--;
+    }
+
+    @Override
+    public void advance(long now) {
+        if (!started) {
+            origin = now;
+            current = 0;
+            started = true;
+            return;
+        }
+        long target = Math.floorDiv(now - origin, resolution);
+        if (target <= current) {
+            return;
+        }
+        while (current < target) {
+            int level = 0;
+            while (level < LEVELS && occupied[level] == 0) {
+                level++;
+            }
+            if (level == LEVELS) {
+                break;
+            }
+            int slot = Long.numberOfTrailingZeros(occupied[level]);
+            int shift = level * SLOT_BITS;
+            int above = shift + SLOT_BITS;
+            long prefix = above >= Long.SIZE ? 0 : (current >>> above) << above;
+            long earliest = prefix | ((long) slot << shift);
+            if (earliest > target) {
+                break;
+            }
+            // Jump right to the start of the bucket and spill everything
+            // in it either into the expired list or into lower levels.
+            current = earliest;
+            int index = level * SLOTS + slot;
+            ScheduledEvent event = heads[index];
+            heads[index] = null;
+            tails[index] = null;
+            occupied[level] &= ~(1L << slot);
+            while (event != null) {
+                ScheduledEvent next = event.queueNext;
+                place(event);
+                event = next;
+            }
+        }
+        current = target;
+    }
+
+    @Override
+    public ScheduledEvent poll() {
+        ScheduledEvent event = heads[DUE];
+        if (event == null) {
+            return null;
+        }
+        unlink(event);
+        size--;
+        return event;
+    }
+
+    /**
+     * When the earliest bucket with anything in it starts.
+     * <p>
+     * Lower levels always come before higher ones, and within a level
+     * the lowest occupied slot comes first, so this is just a couple of
+     * bitmap lookups. For anything above level 0 it's only the start of
+     * the bucket, not the exact deadline, which is fine - it's allowed to
+     * be early.
+     * </p>
+     *
+     * @return the earliest time anything in the wheel could expire
+     */
+    @Override
+    public long nextDeadline() {
+        if (heads[DUE] != null) {
+            return Long.MIN_VALUE;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (occupied[level] != 0) {
+                int slot = Long.numberOfTrailingZeros(occupied[level]);
+                int shift = level * SLOT_BITS;
+                int above = shift + SLOT_BITS;
+                long prefix = above >= Long.SIZE ? 0 : (current >>> above) << above;
+                long earliest = prefix | ((long) slot << shift);
+                return origin + earliest * resolution - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Put an event into whichever bucket it belongs in right now.
+     *
+     * @param event the event to place
+     */
+    private void place(ScheduledEvent event) {
+        long tick = event.queueKey;
+        int index;
+        if (tick <= current) {
+            index = DUE;
+        } else {
+            int level = (63 - Long.numberOfLeadingZeros(tick ^ current)) / SLOT_BITS;
+            int slot = (int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK;
+            index = level * SLOTS + slot;
+            occupied[level] |= 1L << slot;
+        }
+        event.queueIndex = index;
+        event.queueNext = null;
+        event.queuePrev = tails[index];
+        if (tails[index] == null) {
+            heads[index] = event;
+        } else {
+            tails[index].queueNext = event;
+        }
+        tails[index] = event;
+    }
+
+    /**
+     * Take an event out of whichever bucket it's in.
+     *
+     * @param event the event to unlink
+     */
+    private void unlink(ScheduledEvent event) {
+        int index = event.queueIndex;
+        if (event.queuePrev == null) {
+            heads[index] = event.queueNext;
+        } else {
+            event.queuePrev.queueNext = event.queueNext;
+        }
+        if (event.queueNext == null) {
+            tails[index] = event.queuePrev;
+        } else {
+            event.queueNext.queuePrev = event.queuePrev;
+        }
+        if (heads[index] == null && index != DUE) {
+            occupied[index / SLOTS] &= ~(1L << (index % SLOTS));
+        }
+        event.queuePrev = null;
+        event.queueNext = null;
+        event.queueIndex = -1;
+    }
+}
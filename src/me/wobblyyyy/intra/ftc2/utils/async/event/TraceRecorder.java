@@ -0,0 +1,319 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records everything a scheduler does into a binary trace file.
+ * <p>
+ * The whole file is allocated and memory-mapped up front, and every
+ * record is a fixed size, so writing one is just claiming the next slot
+ * and doing a handful of stores straight into the mapping. There's no
+ * allocation, no locking, and no system calls - the OS writes the pages
+ * out whenever it feels like it. Schedulers without a recorder attached
+ * pay for a single null check per callback, and that's it.
+ * </p>
+ * <p>
+ * Once the file's full, anything else is dropped (and counted), rather
+ * than slowing anything down. Slots are claimed atomically, so a single
+ * recorder can be shared by channels ticking on different threads.
+ * </p>
+ * <p>
+ * The file starts with a 16-byte header (magic, version, record size,
+ * and a reserved int), followed by records of {@link TraceRecorder#RECORD_BYTES}
+ * bytes each:
+ * <pre>
+ * byte  type, byte flags, short channel, int reserved,
+ * long  time, long event ID, long x, long y, long z
+ * </pre>
+ * What's in the flags, x, y and z depends on the type - see the type
+ * constants. Every time is the scheduler's clock time, and every event
+ * ID is the event's sequence number within its scheduler. An all-zero
+ * record marks the end of the trace.
+ * </p>
+ *
+ * @author Colin Robertson
+ * @see TraceReplayer
+ */
+public final class TraceRecorder implements Closeable {
+    /**
+     * The first four bytes of every trace - "EVTR".
+     */
+    static final int MAGIC = 0x45565452;
+
+    /**
+     * The trace format version.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * How many bytes the header takes up.
+     */
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * How many bytes every record takes up.
+     */
+    public static final int RECORD_BYTES = 48;
+
+    /**
+     * A tick started. The time is the tick's time.
+     */
+    public static final int TICK_START = 1;
+
+    /**
+     * A tick finished. The time is when it finished, x is how many
+     * callbacks it ran, and y is how much backlog it left.
+     */
+    public static final int TICK_END = 2;
+
+    /**
+     * A callback was run. The flags are the phase, the time is the time
+     * of the tick it ran in, and x is the event's deadline.
+     */
+    public static final int CALLBACK = 3;
+
+    /**
+     * An event was scheduled. x is its delay, y is its duration, z is
+     * its period, and the flags are its {@link TraceRecorder#FIXED_RATE},
+     * {@link TraceRecorder#SKIP} and {@link TraceRecorder#HAS_DURING} bits,
+     * with its priority's ordinal above them, starting at
+     * {@link TraceRecorder#PRIORITY_SHIFT}.
+     */
+    public static final int SCHEDULE = 4;
+
+    /**
+     * An event was cancelled.
+     */
+    public static final int CANCEL = 5;
+
+    /**
+     * An event's deadline was moved. x is the new deadline, relative to
+     * the time.
+     */
+    public static final int MOVE = 6;
+
+    /**
+     * An event's priority was changed. x is the new priority's ordinal.
+     */
+    public static final int PRIORITY = 7;
+
+    /**
+     * Callback phase for open().
+     */
+    public static final int OPEN = 0;
+
+    /**
+     * Callback phase for during().
+     */
+    public static final int DURING = 1;
+
+    /**
+     * Callback phase for close().
+     */
+    public static final int CLOSE = 2;
+
+    /**
+     * Schedule flag - the event repeats at a fixed rate.
+     */
+    public static final int FIXED_RATE = 1;
+
+    /**
+     * Schedule flag - the event skips missed periods.
+     */
+    public static final int SKIP = 2;
+
+    /**
+     * Schedule flag - the event has a during().
+     */
+    public static final int HAS_DURING = 4;
+
+    /**
+     * Where a scheduled event's priority starts in its flags.
+     */
+    public static final int PRIORITY_SHIFT = 3;
+
+    /**
+     * The channel the file is mapped through.
+     */
+    private final FileChannel fileChannel;
+
+    /**
+     * The mapped file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * How many records fit in the file.
+     */
+    private final int capacity;
+
+    /**
+     * The next slot to be claimed. Never goes past the capacity.
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * How many records didn't fit.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Create a recorder, allocating and mapping the whole trace file.
+     *
+     * @param file       where to write the trace
+     * @param maxRecords how many records the file should have room for
+     * @throws IOException if the file couldn't be created
+     */
+    public TraceRecorder(Path file, int maxRecords) throws IOException {
+        if (maxRecords <= 0) {
+            throw new IllegalArgumentException("Need room for at least one record, got " + maxRecords);
+        }
+        capacity = maxRecords;
+        fileChannel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        );
+        buffer = fileChannel.map(
+                FileChannel.MapMode.READ_WRITE,
+                0,
+                HEADER_BYTES + (long) maxRecords * RECORD_BYTES
+        );
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_BYTES);
+    }
+
+    /**
+     * How many records have been written.
+     *
+     * @return the number of records in the trace
+     */
+    public int size() {
+        return next.get();
+    }
+
+    /**
+     * How many records were dropped because the file was full.
+     *
+     * @return the number of dropped records
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Has the trace run out of room?
+     *
+     * @return true if anything else recorded will be dropped
+     */
+    public boolean isFull() {
+        return next.get() >= capacity;
+    }
+
+    /**
+     * Write a single record.
+     *
+     * @param type    what kind of record it is
+     * @param flags   type-specific flags
+     * @param channel the channel it happened on
+     * @param time    when it happened
+     * @param id      the event it's about, if any
+     * @param x       type-specific value
+     * @param y       type-specific value
+     * @param z       type-specific value
+     */
+    void record(int type, int flags, int channel, long time, long id, long x, long y, long z) {
+        // Only claim a slot if there's one left, so a full trace doesn't
+        // keep counting up until it wraps around.
+        int slot;
+        do {
+            slot = next.get();
+            if (slot >= capacity) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!next.compareAndSet(slot, slot + 1));
+        int at = HEADER_BYTES + slot * RECORD_BYTES;
+        buffer.put(at + 1, (byte) flags);
+        buffer.putShort(at + 2, (short) channel);
+        buffer.putLong(at + 8, time);
+        buffer.putLong(at + 16, id);
+        buffer.putLong(at + 24, x);
+        buffer.putLong(at + 32, y);
+        buffer.putLong(at + 40, z);
+        // The type goes in last - a record isn't there until it has one.
+        buffer.put(at, (byte) type);
+    }
+
+    /**
+     * Record an event being scheduled.
+     *
+     * @param channel the channel it was scheduled on
+     * @param time    when it was scheduled
+     * @param event   the event
+     * @param delay   how long until it opens
+     */
+    void schedule(int channel, long time, ScheduledEvent event, long delay) {
+        int flags = 0;
+        if (event.repeatMode == RepeatMode.FIXED_RATE) {
+            flags |= FIXED_RATE;
+        }
+        if (event.overrunPolicy == OverrunPolicy.SKIP) {
+            flags |= SKIP;
+        }
+        if (event.hasDuring) {
+            flags |= HAS_DURING;
+        }
+        flags |= event.priority << PRIORITY_SHIFT;
+        record(SCHEDULE, flags, channel, time, event.sequence, delay, event.duration, event.period);
+    }
+
+    /**
+     * Flush the trace out to disk and close the file.
+     *
+     * @throws IOException if the file couldn't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        fileChannel.close();
+    }
+}
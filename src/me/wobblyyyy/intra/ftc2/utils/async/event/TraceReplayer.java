@@ -0,0 +1,320 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import me.wobblyyyy.intra.ftc2.utils.TimedLifecycle;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * Plays a trace from a {@link TraceRecorder} back through brand new
+ * schedulers, against a {@link ManualClock}.
+ * <p>
+ * Every schedule, cancel, move and tick in the trace is done again, in
+ * the same order, at the same (virtual) time, on one scheduler per
+ * recorded channel. The real callbacks obviously aren't around anymore,
+ * so the replayed events get stand-ins which just count how many times
+ * they're run. That makes this good for two things:
+ * <ul>
+ *     <li>
+ *         Benchmarking - {@link TraceReplayer#replay()} times how long
+ *         the schedulers spent on the whole trace, so a change to the
+ *         scheduler can be measured against a real workload instead of
+ *         a made-up one.
+ *     </li>
+ *     <li>
+ *         Checking - a replay should run exactly as many callbacks as the
+ *         trace says the original did. If it doesn't, the scheduler's
+ *         behaviour has changed.
+ *     </li>
+ * </ul>
+ * </p>
+ * <p>
+ * The replay's schedulers use whatever {@link EventQueue} the factory
+ * hands back, which is how two queues get compared on the same trace.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public class TraceReplayer {
+    /**
+     * Makes a fresh queue for every replayed channel.
+     */
+    public interface QueueFactory {
+        /**
+         * Make a new queue.
+         *
+         * @return an empty queue
+         */
+        EventQueue create();
+    }
+
+    /**
+     * The trace being replayed.
+     */
+    private final Path file;
+
+    /**
+     * Where the replayed channels' queues come from.
+     */
+    private final QueueFactory queues;
+
+    /**
+     * The clock every replayed channel runs on.
+     */
+    private final ManualClock clock = new ManualClock();
+
+    /**
+     * The replayed schedulers, by recorded channel.
+     */
+    private final HashMap<Integer, Events> channels = new HashMap<>();
+
+    /**
+     * The replayed events, by channel and recorded event ID.
+     */
+    private final HashMap<Long, ScheduledEvent> replayed = new HashMap<>();
+
+    /**
+     * How many callbacks the trace says were run.
+     */
+    private long recordedCallbacks = 0;
+
+    /**
+     * How many callbacks the replay ran.
+     */
+    private long replayedCallbacks = 0;
+
+    /**
+     * How many ticks were replayed.
+     */
+    private long ticks = 0;
+
+    /**
+     * Stand-in for events without a during().
+     */
+    private final TimedLifecycle plain = new TimedLifecycle() {
+        @Override
+        public void onOpen() {
+            replayedCallbacks++;
+        }
+
+        @Override
+        public void onClose() {
+            replayedCallbacks++;
+        }
+    };
+
+    /**
+     * Stand-in for events with a during().
+     */
+    private final TimedLifecycle withDuring = new TimedLifecycle() {
+        @Override
+        public void onOpen() {
+            replayedCallbacks++;
+        }
+
+        @Override
+        public void onDuring() {
+            replayedCallbacks++;
+        }
+
+        @Override
+        public void onClose() {
+            replayedCallbacks++;
+        }
+    };
+
+    /**
+     * Create a replayer that uses the default heap queue.
+     *
+     * @param file the trace to replay
+     */
+    public TraceReplayer(Path file) {
+        this(file, new QueueFactory() {
+            @Override
+            public EventQueue create() {
+                return new HeapEventQueue();
+            }
+        });
+    }
+
+    /**
+     * Create a replayer.
+     *
+     * @param file   the trace to replay
+     * @param queues where the replayed channels' queues come from
+     */
+    public TraceReplayer(Path file, QueueFactory queues) {
+        this.file = file;
+        this.queues = queues;
+    }
+
+    /**
+     * Replay the whole trace.
+     *
+     * @return how long the schedulers spent replaying, in nanoseconds of
+     * real time
+     * @throws IOException if the trace couldn't be read, or isn't a trace
+     */
+    public long replay() throws IOException {
+        long spent = 0;
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            if (buffer.limit() < TraceRecorder.HEADER_BYTES
+                    || buffer.getInt(0) != TraceRecorder.MAGIC
+                    || buffer.getInt(4) != TraceRecorder.VERSION
+                    || buffer.getInt(8) != TraceRecorder.RECORD_BYTES) {
+                throw new IOException(file + " isn't a scheduler trace");
+            }
+            for (int at = TraceRecorder.HEADER_BYTES;
+                 at + TraceRecorder.RECORD_BYTES <= buffer.limit();
+                 at += TraceRecorder.RECORD_BYTES) {
+                int type = buffer.get(at);
+                if (type == 0) {
+                    break;
+                }
+                int flags = buffer.get(at + 1);
+                int channel = buffer.getShort(at + 2);
+                long time = buffer.getLong(at + 8);
+                long id = buffer.getLong(at + 16);
+                long x = buffer.getLong(at + 24);
+                long y = buffer.getLong(at + 32);
+                long z = buffer.getLong(at + 40);
+                if (type == TraceRecorder.CALLBACK) {
+                    recordedCallbacks++;
+                    continue;
+                }
+                if (type == TraceRecorder.TICK_END) {
+                    continue;
+                }
+                if (time > clock.nanoTime() || channels.isEmpty()) {
+                    clock.set(time);
+                }
+                Events events = channel(channel);
+                Long key = ((long) channel << 48) ^ id;
+                long start = System.nanoTime();
+                switch (type) {
+                    case TraceRecorder.TICK_START:
+                        events.tick();
+                        ticks++;
+                        break;
+                    case TraceRecorder.SCHEDULE:
+                        replayed.put(key, events.enqueue(
+                                y,
+                                x,
+                                (flags & TraceRecorder.HAS_DURING) != 0 ? withDuring : plain,
+                                z,
+                                (flags & TraceRecorder.FIXED_RATE) != 0 ? RepeatMode.FIXED_RATE : RepeatMode.FIXED_DELAY,
+                                (flags & TraceRecorder.SKIP) != 0 ? OverrunPolicy.SKIP : OverrunPolicy.CATCH_UP,
+                                (flags >>> TraceRecorder.PRIORITY_SHIFT) & 3
+                        ));
+                        break;
+                    case TraceRecorder.PRIORITY:
+                        ScheduledEvent changed = replayed.get(key);
+                        if (changed != null) {
+                            events.setPriority(changed, (int) x);
+                        }
+                        break;
+                    case TraceRecorder.CANCEL:
+                        ScheduledEvent cancelled = replayed.remove(key);
+                        if (cancelled != null) {
+                            events.cancel(cancelled);
+                        }
+                        break;
+                    case TraceRecorder.MOVE:
+                        ScheduledEvent moved = replayed.get(key);
+                        if (moved != null) {
+                            events.move(moved, time + x);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                spent += System.nanoTime() - start;
+            }
+        }
+        return spent;
+    }
+
+    /**
+     * Get the replayed scheduler for a channel, creating it if needed.
+     *
+     * @param channel the recorded channel
+     * @return the channel's replayed scheduler
+     */
+    private Events channel(int channel) {
+        Events events = channels.get(channel);
+        if (events == null) {
+            events = new Events(clock, queues.create());
+            channels.put(channel, events);
+        }
+        return events;
+    }
+
+    /**
+     * How many callbacks the trace says were run.
+     *
+     * @return the number of recorded callbacks
+     */
+    public long getRecordedCallbacks() {
+        return recordedCallbacks;
+    }
+
+    /**
+     * How many callbacks the replay ran.
+     *
+     * @return the number of replayed callbacks
+     */
+    public long getReplayedCallbacks() {
+        return replayedCallbacks;
+    }
+
+    /**
+     * How many ticks were replayed.
+     *
+     * @return the number of replayed ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Get the clock the replay ran against.
+     *
+     * @return the replay's clock
+     */
+    public ManualClock getClock() {
+        return clock;
+    }
+}
@@ -0,0 +1,797 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 4:40 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event;
+
+import me.wobblyyyy.intra.ftc2.utils.TimedLifecycle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A thread that notices when a tick loop gets stuck.
+ * <p>
+ * Callbacks run right on the thread ticking the scheduler, so a single
+ * callback that blocks (waiting on a sensor, a lock, a network call...)
+ * holds up everything else along with it. Usually, the first anyone
+ * hears of it is the robot doing something it really shouldn't. This
+ * watches the heartbeat of every loop registered with it, and as soon
+ * as one of them spends longer than the deadline inside a single tick:
+ * <ul>
+ *     <li>
+ *         The stalled thread's stack is captured, along with whichever
+ *         callback was running when it stalled.
+ *     </li>
+ *     <li>
+ *         The {@link Hook safety hook} is run, if there is one. This is
+ *         the place to stop motors and the like.
+ *     </li>
+ *     <li>
+ *         Once the tick finally finishes, how long it went over the
+ *         deadline is recorded in {@link Watchdog#getOverruns()}.
+ *     </li>
+ * </ul>
+ * </p>
+ * <p>
+ * Anything can be watched - a single {@link Events} scheduler, every
+ * {@link StringEvents} channel at once, or any other loop that calls
+ * {@link Heartbeat#begin()} and {@link Heartbeat#end()} around each of
+ * its iterations. Each stalled tick is only reported once, however long
+ * it ends up being stuck for.
+ * </p>
+ * <p>
+ * The watched loops don't pay for much. Starting and finishing a tick
+ * is a couple of volatile stores. Every callback an {@link Events}
+ * scheduler runs while it's being watched costs a couple of ordered
+ * stores, which (like {@link Histogram}'s) never wait on anything, so
+ * the watchdog might see which callback is running a moment late, but
+ * never a torn or stale-forever one. All of the actual checking happens
+ * over on the watchdog's own thread, which parks in between checks.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public final class Watchdog {
+    /**
+     * The phase a stalled loop is in when it isn't running any callback
+     * at all - it's stuck somewhere else in the loop.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * What {@link Heartbeat#started} is set to between ticks.
+     */
+    private static final long IDLE = Long.MIN_VALUE;
+
+    /**
+     * How long a single tick is allowed to take, in nanoseconds.
+     */
+    private final long deadline;
+
+    /**
+     * How long the watchdog waits between checks, in nanoseconds.
+     */
+    private final long interval;
+
+    /**
+     * Every heartbeat being watched. It's replaced whole whenever one is
+     * added or removed, so the watchdog never has to lock anything to
+     * read it.
+     */
+    private volatile Heartbeat[] heartbeats = new Heartbeat[0];
+
+    /**
+     * What to run whenever something stalls, or null.
+     */
+    private volatile Hook hook = null;
+
+    /**
+     * How far past the deadline every stalled tick went.
+     */
+    private final Histogram overruns = new Histogram();
+
+    /**
+     * How many stalled ticks have been noticed.
+     */
+    private volatile long stalls = 0;
+
+    /**
+     * The last stall that was noticed, or null.
+     */
+    private volatile Stall lastStall = null;
+
+    /**
+     * Should the watchdog keep going?
+     */
+    private volatile boolean running = false;
+
+    /**
+     * The watchdog's thread, or null if it isn't running.
+     */
+    private volatile Thread thread = null;
+
+    /**
+     * Create a watchdog which checks four times per deadline.
+     *
+     * @param deadline how long a single tick is allowed to take
+     * @param unit     the unit the deadline is in
+     */
+    public Watchdog(long deadline, TimeUnit unit) {
+        this(deadline, Math.max(1, deadline / 4), unit);
+    }
+
+    /**
+     * Create a watchdog.
+     * <p>
+     * A stall is noticed somewhere between the deadline and the deadline
+     * plus the check interval after the tick started. Checking more
+     * often notices stalls sooner, at the cost of waking the watchdog's
+     * thread up more often.
+     * </p>
+     *
+     * @param deadline how long a single tick is allowed to take
+     * @param interval how long to wait between checks
+     * @param unit     the unit both times are in
+     */
+    public Watchdog(long deadline, long interval, TimeUnit unit) {
+        if (deadline <= 0 || interval <= 0) {
+            throw new IllegalArgumentException(
+                    "Need a positive deadline and interval, got " + deadline + ", " + interval
+            );
+        }
+        this.deadline = unit.toNanos(deadline);
+        this.interval = unit.toNanos(interval);
+    }
+
+    /**
+     * Watch a single scheduler. Every one of its ticks is timed, and
+     * every callback it runs inline is noted, so a stall can be pinned
+     * on whichever one was running.
+     *
+     * @param events the scheduler to watch
+     * @return the scheduler's heartbeat
+     */
+    public Heartbeat watch(Events events) {
+        if (events.heartbeat != null) {
+            throw new IllegalStateException("That scheduler is already being watched");
+        }
+        Heartbeat heartbeat = add(new Heartbeat("Events", events));
+        events.heartbeat = heartbeat;
+        return heartbeat;
+    }
+
+    /**
+     * Watch {@link StringEvents#tick()}. Every channel, including ones
+     * created later, notes the callbacks it runs, so a stall can be
+     * pinned on whichever one was running.
+     * <p>
+     * In sharded mode, channels are ticked on the pool's threads, so every
+     * shard gets a heartbeat of its own, named "StringEvents shard n",
+     * which is checked and reported on separately. A stall is reported
+     * with the stack of the pool thread that's stuck, and the callback
+     * that shard was running. The heartbeat handed back here is stalled
+     * whenever any of its shards is.
+     * </p>
+     *
+     * @return the heartbeat of StringEvents.tick()
+     */
+    public Heartbeat watchStringEvents() {
+        if (StringEvents.getHeartbeat() != null) {
+            throw new IllegalStateException("StringEvents is already being watched");
+        }
+        Heartbeat heartbeat = add(new Heartbeat("StringEvents", null));
+        StringEvents.setHeartbeat(heartbeat);
+        return heartbeat;
+    }
+
+    /**
+     * Watch any other loop. The loop has to call {@link Heartbeat#begin()}
+     * at the start of every iteration and {@link Heartbeat#end()} at the
+     * end of it.
+     *
+     * @param name what the loop is called in stall reports
+     * @return the loop's heartbeat
+     */
+    public Heartbeat watch(String name) {
+        return add(new Heartbeat(name, null));
+    }
+
+    /**
+     * Stop watching a heartbeat.
+     *
+     * @param heartbeat the heartbeat to stop watching
+     */
+    public synchronized void unwatch(Heartbeat heartbeat) {
+        Heartbeat[] old = heartbeats;
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] != heartbeat) {
+                continue;
+            }
+            Heartbeat[] replacement = new Heartbeat[old.length - 1];
+            System.arraycopy(old, 0, replacement, 0, i);
+            System.arraycopy(old, i + 1, replacement, i, old.length - i - 1);
+            heartbeats = replacement;
+            if (heartbeat.events != null) {
+                heartbeat.events.heartbeat = null;
+            } else if (StringEvents.getHeartbeat() == heartbeat) {
+                StringEvents.setHeartbeat(null);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Add a heartbeat to the ones being watched.
+     *
+     * @param heartbeat the heartbeat to add
+     * @return the heartbeat
+     */
+    private synchronized Heartbeat add(Heartbeat heartbeat) {
+        Heartbeat[] old = heartbeats;
+        Heartbeat[] replacement = new Heartbeat[old.length + 1];
+        System.arraycopy(old, 0, replacement, 0, old.length);
+        replacement[old.length] = heartbeat;
+        heartbeats = replacement;
+        return heartbeat;
+    }
+
+    /**
+     * Set what should be run whenever a stall is noticed.
+     * <p>
+     * The hook runs on the watchdog's thread, while the stalled loop is
+     * still stuck. Anything it throws is handed to the watchdog thread's
+     * uncaught exception handler, and the watchdog carries on watching.
+     * </p>
+     *
+     * @param hook what to run, or null to not run anything
+     */
+    public void setHook(Hook hook) {
+        this.hook = hook;
+    }
+
+    /**
+     * How long a single tick is allowed to take.
+     *
+     * @return the deadline, in nanoseconds
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * How many stalled ticks have been noticed.
+     *
+     * @return the number of stalls
+     */
+    public long getStalls() {
+        return stalls;
+    }
+
+    /**
+     * Get the last stall that was noticed.
+     *
+     * @return the last stall, or null if nothing has stalled yet
+     */
+    public Stall getLastStall() {
+        return lastStall;
+    }
+
+    /**
+     * How far past the deadline stalled ticks went, in nanoseconds.
+     * <p>
+     * A stall is only recorded in here once its tick finally finishes,
+     * since there's no way of knowing how long it went over by before
+     * then.
+     * </p>
+     *
+     * @return a histogram of overruns
+     */
+    public Histogram getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * Start the watchdog's thread.
+     * <p>
+     * The thread is a daemon, so it won't keep the program alive on its
+     * own. It runs at the highest priority, so a busy loop can't keep it
+     * from noticing that the loop is busy.
+     * </p>
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("This watchdog is already running");
+        }
+        running = true;
+        Thread watchdogThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "Watchdog");
+        watchdogThread.setDaemon(true);
+        watchdogThread.setPriority(Thread.MAX_PRIORITY);
+        thread = watchdogThread;
+        watchdogThread.start();
+    }
+
+    /**
+     * Stop the watchdog, and wait for its thread to finish.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void stop() throws InterruptedException {
+        Thread watchdogThread = thread;
+        if (watchdogThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(watchdogThread);
+        if (watchdogThread != Thread.currentThread()) {
+            watchdogThread.join();
+        }
+    }
+
+    /**
+     * Is the watchdog running?
+     *
+     * @return true if the watchdog's thread is checking heartbeats
+     */
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * The watchdog itself - check, wait, repeat.
+     */
+    private void loop() {
+        try {
+            while (running) {
+                check();
+                LockSupport.parkNanos(this, interval);
+            }
+        } finally {
+            thread = null;
+        }
+    }
+
+    /**
+     * Check every heartbeat once.
+     * <p>
+     * This is only ever called from the watchdog's thread, which is the
+     * only thread that touches {@link Heartbeat#stall} or records
+     * overruns.
+     * </p>
+     */
+    void check() {
+        Heartbeat[] watched = heartbeats;
+        for (Heartbeat heartbeat : watched) {
+            check(heartbeat);
+            Heartbeat[] parts = heartbeat.parts;
+            if (parts != null) {
+                for (Heartbeat part : parts) {
+                    check(part);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check a single heartbeat.
+     *
+     * @param heartbeat the heartbeat to check
+     */
+    private void check(Heartbeat heartbeat) {
+        Stall stall = heartbeat.stall;
+        if (stall != null) {
+            if (stall.duration < 0) {
+                // Still stuck in the same tick - it's already been
+                // reported.
+                return;
+            }
+            overruns.record(stall.duration - deadline);
+            heartbeat.stall = null;
+        }
+        long started = heartbeat.started;
+        if (started == IDLE) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - started <= deadline) {
+            return;
+        }
+        Thread stalled = heartbeat.thread;
+        ScheduledEvent event = heartbeat.current.get();
+        int phase = event != null ? heartbeat.phase : NONE;
+        stall = new Stall(
+                heartbeat.name,
+                stalled,
+                stalled != null ? stalled.getStackTrace() : new StackTraceElement[0],
+                event != null ? event.callback : null,
+                phase,
+                started,
+                now - started - deadline
+        );
+        heartbeat.stall = stall;
+        if (heartbeat.started != started) {
+            // It finished while the stack was being captured, before
+            // it could see the stall and finish it itself.
+            stall.finish(System.nanoTime() - started);
+        }
+        stalls++;
+        lastStall = stall;
+        Hook safety = hook;
+        if (safety != null) {
+            try {
+                safety.onStall(stall);
+            } catch (RuntimeException e) {
+                Thread self = Thread.currentThread();
+                self.getUncaughtExceptionHandler().uncaughtException(self, e);
+            }
+        }
+    }
+
+    /**
+     * Something to run whenever a tick loop stalls.
+     */
+    public interface Hook {
+        /**
+         * Called from the watchdog's thread as soon as a stall is
+         * noticed, while the loop is still stuck.
+         *
+         * @param stall everything known about the stall so far
+         */
+        void onStall(Stall stall);
+    }
+
+    /**
+     * The heartbeat of a single watched loop.
+     * <p>
+     * Only the thread running the loop should call {@link Heartbeat#begin()}
+     * and {@link Heartbeat#end()}. For {@link Events} and
+     * {@link StringEvents}, that's already taken care of.
+     * </p>
+     */
+    public static final class Heartbeat {
+        /**
+         * What the loop is called in stall reports.
+         */
+        private final String name;
+
+        /**
+         * The scheduler this is the heartbeat of, if it's a single
+         * scheduler's. Only that scheduler's ticks begin and end it.
+         */
+        final Events events;
+
+        /**
+         * The thread running the current tick.
+         */
+        private volatile Thread thread;
+
+        /**
+         * When the current tick started, or {@link Watchdog#IDLE}.
+         */
+        private volatile long started = IDLE;
+
+        /**
+         * The event whose callback is running, or null. It's only ever
+         * written with lazySet(), so noting a callback doesn't stall the
+         * loop.
+         */
+        private final AtomicReference<ScheduledEvent> current = new AtomicReference<>();
+
+        /**
+         * Which of the current event's callbacks is running. It's always
+         * written before {@link Heartbeat#current}, so whoever reads that
+         * sees the right phase.
+         */
+        private int phase = NONE;
+
+        /**
+         * The stall the watchdog has noticed but hasn't finished dealing
+         * with, or null.
+         */
+        private volatile Stall stall;
+
+        /**
+         * Heartbeats that are part of this one, each checked on its own,
+         * or null. A sharded StringEvents tick has one per shard.
+         */
+        volatile Heartbeat[] parts;
+
+        /**
+         * Create a heartbeat.
+         *
+         * @param name   what the loop is called
+         * @param events the scheduler it's the heartbeat of, or null
+         */
+        Heartbeat(String name, Events events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        /**
+         * Get what the loop is called in stall reports.
+         *
+         * @return the loop's name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Mark the start of a tick.
+         */
+        public void begin() {
+            thread = Thread.currentThread();
+            started = System.nanoTime();
+        }
+
+        /**
+         * Mark the end of a tick. If the watchdog noticed the tick had
+         * stalled, this is where the stall finds out how long it was.
+         */
+        public void end() {
+            long start = started;
+            current.lazySet(null);
+            started = IDLE;
+            Stall noticed = stall;
+            if (noticed != null && noticed.started == start) {
+                noticed.finish(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Is the loop in the middle of a tick which the watchdog has
+         * already reported?
+         *
+         * @return true if the loop, or any part of it, is stalled right
+         * now
+         */
+        public boolean isStalled() {
+            Stall noticed = stall;
+            if (noticed != null && noticed.duration < 0) {
+                return true;
+            }
+            Heartbeat[] split = parts;
+            if (split != null) {
+                for (Heartbeat part : split) {
+                    if (part.isStalled()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Note that one of an event's callbacks is about to run.
+         *
+         * @param event the event
+         * @param phase which of its callbacks it is
+         */
+        void enter(ScheduledEvent event, int phase) {
+            this.phase = phase;
+            current.lazySet(event);
+        }
+
+        /**
+         * Note that the callback that was running has finished.
+         */
+        void leave() {
+            current.lazySet(null);
+        }
+    }
+
+    /**
+     * Everything known about a single stalled tick.
+     */
+    public static final class Stall {
+        /**
+         * The name of the loop that stalled.
+         */
+        private final String name;
+
+        /**
+         * The thread that stalled.
+         */
+        private final Thread thread;
+
+        /**
+         * Where the thread was when the stall was noticed.
+         */
+        private final StackTraceElement[] stack;
+
+        /**
+         * The callback that was running, or null.
+         */
+        private final TimedLifecycle callback;
+
+        /**
+         * Which of the callback's methods was running.
+         */
+        private final int phase;
+
+        /**
+         * When the stalled tick started.
+         */
+        final long started;
+
+        /**
+         * How far past the deadline the tick was when it was noticed.
+         */
+        private final long noticedAfter;
+
+        /**
+         * How long the tick took in total, or -1 if it's still going.
+         */
+        private volatile long duration = -1;
+
+        /**
+         * Create a stall.
+         *
+         * @param name         the loop's name
+         * @param thread       the stalled thread
+         * @param stack        the stalled thread's stack
+         * @param callback     the callback that was running
+         * @param phase        which of the callback's methods was running
+         * @param started      when the tick started
+         * @param noticedAfter how far over the deadline the tick was
+         */
+        Stall(String name,
+              Thread thread,
+              StackTraceElement[] stack,
+              TimedLifecycle callback,
+              int phase,
+              long started,
+              long noticedAfter) {
+            this.name = name;
+            this.thread = thread;
+            this.stack = stack;
+            this.callback = callback;
+            this.phase = phase;
+            this.started = started;
+            this.noticedAfter = noticedAfter;
+        }
+
+        /**
+         * Record how long the tick took, once it's done.
+         *
+         * @param duration the tick's total duration, in nanoseconds
+         */
+        void finish(long duration) {
+            if (this.duration < 0) {
+                this.duration = duration;
+            }
+        }
+
+        /**
+         * Get the name of the loop that stalled.
+         *
+         * @return the loop's name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the thread that stalled.
+         *
+         * @return the stalled thread
+         */
+        public Thread getThread() {
+            return thread;
+        }
+
+        /**
+         * Get where the stalled thread was when the stall was noticed.
+         *
+         * @return the stalled thread's stack, innermost frame first
+         */
+        public StackTraceElement[] getStackTrace() {
+            return stack.clone();
+        }
+
+        /**
+         * Get the callback that was running when the stall was noticed.
+         *
+         * @return the callback, or null if the loop was stuck somewhere
+         * other than a scheduler's callback
+         */
+        public TimedLifecycle getCallback() {
+            return callback;
+        }
+
+        /**
+         * Get which of the callback's methods was running.
+         *
+         * @return {@link TraceRecorder#OPEN}, {@link TraceRecorder#DURING},
+         * {@link TraceRecorder#CLOSE}, or {@link Watchdog#NONE} if no
+         * callback was running
+         */
+        public int getPhase() {
+            return phase;
+        }
+
+        /**
+         * How far past the deadline the tick was when the stall was
+         * noticed.
+         *
+         * @return nanoseconds past the deadline
+         */
+        public long getNoticedAfter() {
+            return noticedAfter;
+        }
+
+        /**
+         * Has the stalled tick finished yet?
+         *
+         * @return true if the loop has got going again
+         */
+        public boolean isOver() {
+            return duration >= 0;
+        }
+
+        /**
+         * How long the stalled tick took, all told.
+         *
+         * @return the tick's duration in nanoseconds, or -1 if it still
+         * hasn't finished
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(name).append(" stalled");
+            if (thread != null) {
+                builder.append(" on thread ").append(thread.getName());
+            }
+            if (callback != null) {
+                builder.append(" in ")
+                        .append(callback.getClass().getName())
+                        .append(phase == TraceRecorder.OPEN ? ".onOpen()"
+                                : phase == TraceRecorder.DURING ? ".onDuring()" : ".onClose()");
+            }
+            long took = duration;
+            if (took >= 0) {
+                builder.append(", tick took ").append(took).append("ns");
+            } else {
+                builder.append(", still stuck");
+            }
+            for (StackTraceElement element : stack) {
+                builder.append("\n\tat ").append(element);
+            }
+            return builder.toString();
+        }
+    }
+}
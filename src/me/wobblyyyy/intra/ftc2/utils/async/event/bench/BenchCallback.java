@@ -0,0 +1,61 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event.bench;
+
+import me.wobblyyyy.intra.ftc2.utils.TimedLifecycle;
+
+/**
+ * The callback every benchmark event runs.
+ * <p>
+ * {@link DispatchBenchmark} loads a fresh copy of this class into its
+ * own class loader for every "type" it needs, so to the JVM, each copy
+ * is a completely different class, even though they've all got the same
+ * code. That's a lot easier than writing out a thousand Timed classes by
+ * hand.
+ * </p>
+ * <p>
+ * during() does a tiny bit of arithmetic into a field, so there's
+ * something to inline, but not so much that it drowns out the cost of
+ * the call.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public class BenchCallback implements TimedLifecycle {
+    /**
+     * Something for during() to chew on.
+     */
+    private long state = 1;
+
+    @Override
+    public void onDuring() {
+        state ^= state << 13;
+        state ^= state >>> 7;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * **
+ *
+ * Copyright (c) 2026
+ * Copyright last updated on 10/16/26, 2:04 PM
+ * Part of the _1125c library
+ *
+ * **
+ *
+ * Permission is granted, free of charge, to any person obtaining
+ * a copy of this software and / or any of it's related source code or
+ * documentation ("Software") to copy, merge, modify, publish,
+ * distribute, sublicense, and / or sell copies of Software.
+ *
+ * All Software included is provided in an "as is" state, without any
+ * type or form of warranty. The Authors and Copyright Holders of this
+ * piece of software, documentation, or source code waive all
+ * responsibility and shall not be liable for any claim, damages, or
+ * other forms of liability, regardless of the form it may take.
+ *
+ * Any form of re-distribution of Software is required to have this same
+ * copyright notice included in any source files or forms of documentation
+ * which have stemmed or branched off of the original Software.
+ *
+ * **
+ *
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event.bench;
+
+import me.wobblyyyy.intra.ftc2.utils.TimedLifecycle;
+import me.wobblyyyy.intra.ftc2.utils.async.event.Events;
+import me.wobblyyyy.intra.ftc2.utils.async.event.ManualClock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast during()s are dispatched with and without grouping
+ * by callback class.
+ * <p>
+ * Every run opens the same number of events, which never close, and
+ * spreads them round-robin over some number of distinct callback
+ * classes - the worst possible order for ungrouped dispatch, since no
+ * two during()s in a row go to the same class. Then it ticks the
+ * scheduler over and over, and reports how long each during() took on
+ * average.
+ * </p>
+ * <p>
+ * Usage: {@code DispatchBenchmark [types] [grouped|ungrouped]}. With no
+ * arguments, it runs 10, 100 and 1000 types, both ways, one after the
+ * other.
+ * </p>
+ * <p>
+ * <b>Read the numbers carefully.</b> The JIT profiles the call site in
+ * tick() over the whole life of the JVM, so once any run has pushed
+ * more than two classes through it, it's megamorphic for every run
+ * after. Running everything in one JVM is fine for comparing grouped
+ * against ungrouped at the same number of types (that's purely about
+ * how predictable the calls are), but for comparing different numbers
+ * of types against each other, run each one in a fresh JVM.
+ * </p>
+ *
+ * @author Colin Robertson
+ */
+public final class DispatchBenchmark {
+    /**
+     * How many events are open in every run.
+     */
+    private static final int EVENTS = 10_000;
+
+    /**
+     * How many ticks to run before measuring anything.
+     */
+    private static final int WARMUP_TICKS = 2_000;
+
+    /**
+     * How many ticks to measure.
+     */
+    private static final int MEASURED_TICKS = 2_000;
+
+    /**
+     * Keeps the scheduler's result from being thrown away.
+     */
+    private static long sink = 0;
+
+    /**
+     * Utility class - there's nothing to create.
+     */
+    private DispatchBenchmark() {
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optionally, the number of types and the mode to run
+     * @throws Exception if the callback class couldn't be loaded
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 1) {
+            int types = Integer.parseInt(args[0]);
+            if (args.length >= 2) {
+                report(types, "grouped".equals(args[1]));
+            } else {
+                report(types, false);
+                report(types, true);
+            }
+            return;
+        }
+        for (int types : new int[]{10, 100, 1000}) {
+            report(types, false);
+            report(types, true);
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /**
+     * Run a single configuration and print the result.
+     *
+     * @param types   how many distinct callback classes to use
+     * @param grouped should during()s be grouped by class?
+     * @throws Exception if the callback class couldn't be loaded
+     */
+    private static void report(int types, boolean grouped) throws Exception {
+        double nanos = run(types, grouped);
+        System.out.printf(
+                "%5d types, %-9s %7.2f ns per during(), %6.1f M during()s per second%n",
+                types,
+                grouped ? "grouped" : "ungrouped",
+                nanos,
+                1_000.0 / nanos
+        );
+    }
+
+    /**
+     * Run a single configuration.
+     *
+     * @param types   how many distinct callback classes to use
+     * @param grouped should during()s be grouped by class?
+     * @return the average time per during(), in nanoseconds
+     * @throws Exception if the callback class couldn't be loaded
+     */
+    private static double run(int types, boolean grouped) throws Exception {
+        Class<?>[] kinds = new Class<?>[types];
+        byte[] bytes = classBytes();
+        for (int i = 0; i < types; i++) {
+            kinds[i] = new IsolatingLoader(bytes).load();
+        }
+        ManualClock clock = new ManualClock();
+        Events events = new Events(clock);
+        events.setGroupedDispatch(grouped);
+        for (int i = 0; i < EVENTS; i++) {
+            // A fresh instance each time, of whichever class is next.
+            TimedLifecycle callback = (TimedLifecycle) kinds[i % types].getDeclaredConstructor().newInstance();
+            events.insert(1, TimeUnit.HOURS, callback);
+        }
+        events.tick();
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            events.tick();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            events.tick();
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += events.size();
+        return (double) elapsed / ((long) MEASURED_TICKS * EVENTS);
+    }
+
+    /**
+     * Read the compiled {@link BenchCallback} class.
+     *
+     * @return the class file's bytes
+     * @throws IOException if it couldn't be read
+     */
+    private static byte[] classBytes() throws IOException {
+        try (InputStream in = BenchCallback.class.getResourceAsStream("BenchCallback.class")) {
+            if (in == null) {
+                throw new IOException("Couldn't find BenchCallback.class");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * A class loader which defines its own copy of {@link BenchCallback},
+     * and leaves everything else to its parent.
+     */
+    private static final class IsolatingLoader extends ClassLoader {
+        /**
+         * The class file to define.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Create a loader.
+         *
+         * @param bytes the class file to define
+         */
+        IsolatingLoader(byte[] bytes) {
+            super(DispatchBenchmark.class.getClassLoader());
+            this.bytes = bytes;
+        }
+
+        /**
+         * Define this loader's copy of the callback class.
+         *
+         * @return a class distinct from every other loader's copy
+         */
+        Class<?> load() {
+            return defineClass(BenchCallback.class.getName(), bytes, 0, bytes.length);
+        }
+    }
+}
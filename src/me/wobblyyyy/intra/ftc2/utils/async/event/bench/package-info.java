@@ -0,0 +1,5 @@
+/**
+ * Benchmarks for the event schedulers.
+ */
+
+package me.wobblyyyy.intra.ftc2.utils.async.event.bench;